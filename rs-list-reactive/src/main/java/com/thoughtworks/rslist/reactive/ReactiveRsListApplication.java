@@ -0,0 +1,12 @@
+package com.thoughtworks.rslist.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class ReactiveRsListApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveRsListApplication.class, args);
+    }
+}
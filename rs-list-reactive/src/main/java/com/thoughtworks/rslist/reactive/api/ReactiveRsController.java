@@ -0,0 +1,67 @@
+package com.thoughtworks.rslist.reactive.api;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.exception.AmountNotEnoughException;
+import com.thoughtworks.rslist.exception.Error;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.reactive.service.ReactiveRsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+public class ReactiveRsController {
+
+    @Autowired
+    ReactiveRsService rsService;
+
+    // with "Accept: application/stream+json" events are written as they are ranked
+    // and the database cursor only advances as fast as the client reads
+    @GetMapping(value = "/rs/list", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_STREAM_JSON_VALUE})
+    public Flux<RsEvent> getRsEventListBetween(@RequestParam(required = false) Integer start,
+                                               @RequestParam(required = false) Integer end) {
+        if (start == null || end == null) {
+            return rsService.getRankedRsEvents();
+        }
+        if (start < 1 || end < start) {
+            throw new RequestNotValidException("invalid index");
+        }
+        return rsService.getRankedRsEventsBetween(start, end);
+    }
+
+    @PostMapping("/rs/vote/{id}")
+    public Mono<ResponseEntity<Void>> vote(@PathVariable int id, @RequestBody Vote vote) {
+        return rsService.vote(vote, id).thenReturn(ResponseEntity.ok().<Void>build());
+    }
+
+    @PostMapping("/rs/buy/{rsEventId}")
+    public Mono<ResponseEntity<Void>> buy(@PathVariable int rsEventId, @RequestBody Trade trade) {
+        return rsService.buy(trade, rsEventId).thenReturn(ResponseEntity.ok().<Void>build());
+    }
+
+    @ExceptionHandler(RequestNotValidException.class)
+    public ResponseEntity<Error> handleRequestNotValidException(RequestNotValidException e) {
+        Error error = new Error();
+        error.setError(e.getMessage());
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    @ExceptionHandler(AmountNotEnoughException.class)
+    public ResponseEntity<Error> handleAmountNotEnoughException(AmountNotEnoughException e) {
+        Error error = new Error();
+        error.setError(e.getMessage());
+        return ResponseEntity.status(e.httpStatus).body(error);
+    }
+}
@@ -0,0 +1,22 @@
+package com.thoughtworks.rslist.reactive.api;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.reactive.service.ReactiveRsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+public class ReactiveVoteController {
+
+    @Autowired
+    ReactiveRsService rsService;
+
+    @GetMapping("/voteRecord")
+    public Flux<Vote> getVoteRecord(@RequestParam int userId, @RequestParam int rsEventId,
+                                    @RequestParam int pageIndex) {
+        return rsService.getVoteRecord(userId, rsEventId, pageIndex, 5);
+    }
+}
@@ -0,0 +1,39 @@
+package com.thoughtworks.rslist.reactive.repository;
+
+import com.thoughtworks.rslist.domain.ChangeType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Writes go to the same change_log the servlet nodes poll, so their caches and
+// rankings pick up votes and buys made through this application.
+@Repository
+public class ReactiveChangeLogRepository {
+
+    final String nodeId = UUID.randomUUID().toString();
+
+    final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveChangeLogRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Void> record(ChangeType type, int rsEventId, Integer userId, int amount, LocalDateTime occurredAt) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.execute("INSERT INTO change_log "
+                + "(node_id, type, rs_event_id, user_id, amount, occurred_at, created_at) "
+                + "VALUES (:nodeId, :type, :rsEventId, :userId, :amount, :occurredAt, :createdAt)")
+                .bind("nodeId", nodeId)
+                .bind("type", type.name())
+                .bind("rsEventId", rsEventId)
+                .bind("amount", amount)
+                .bind("occurredAt", occurredAt)
+                .bind("createdAt", LocalDateTime.now());
+        spec = userId == null ? spec.bindNull("userId", Integer.class) : spec.bind("userId", userId);
+        return spec.then();
+    }
+}
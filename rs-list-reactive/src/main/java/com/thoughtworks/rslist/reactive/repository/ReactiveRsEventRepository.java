@@ -0,0 +1,75 @@
+package com.thoughtworks.rslist.reactive.repository;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public class ReactiveRsEventRepository {
+
+    static final String COLUMNS = "id, event_name, keyword, vote_num, user_id";
+
+    final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveRsEventRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Long> count() {
+        return databaseClient.execute("SELECT COUNT(*) AS total FROM rs_event")
+                .map((row, metadata) -> row.get("total", Long.class))
+                .one();
+    }
+
+    // ties keep id order, as the servlet ranking does
+    public Flux<RsEvent> findAllOrderByVoteNumDesc() {
+        return databaseClient.execute("SELECT " + COLUMNS + " FROM rs_event ORDER BY vote_num DESC, id")
+                .map((row, metadata) -> toRsEvent(row))
+                .all();
+    }
+
+    public Flux<RsEvent> findAllByIdIn(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.execute("SELECT " + COLUMNS + " FROM rs_event WHERE id IN (:ids)")
+                .bind("ids", ids)
+                .map((row, metadata) -> toRsEvent(row))
+                .all();
+    }
+
+    public Mono<Optional<String>> findKeywordById(int id) {
+        return databaseClient.execute("SELECT keyword FROM rs_event WHERE id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> Optional.ofNullable(row.get("keyword", String.class)))
+                .first()
+                .defaultIfEmpty(Optional.empty());
+    }
+
+    public Mono<Integer> addVotes(int id, int voteNum) {
+        return databaseClient.execute("UPDATE rs_event SET vote_num = vote_num + :voteNum WHERE id = :id")
+                .bind("voteNum", voteNum)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private RsEvent toRsEvent(Row row) {
+        Integer userId = row.get("user_id", Integer.class);
+        return RsEvent.builder()
+                .id(row.get("id", Integer.class))
+                .eventName(row.get("event_name", String.class))
+                .keyword(row.get("keyword", String.class))
+                .voteNum(row.get("vote_num", Integer.class))
+                .userId(userId == null ? 0 : userId)
+                .build();
+    }
+}
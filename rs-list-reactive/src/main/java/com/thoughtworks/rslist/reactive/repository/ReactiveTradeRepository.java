@@ -0,0 +1,58 @@
+package com.thoughtworks.rslist.reactive.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public class ReactiveTradeRepository {
+
+    final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveTradeRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Optional<Integer>> findCurrentAmountByKeywordAndRank(String keyword, int rank) {
+        return databaseClient.execute("SELECT MAX(amount) AS amount FROM trade WHERE keyword = :keyword AND rank = :rank")
+                .bind("keyword", keyword)
+                .bind("rank", rank)
+                .map((row, metadata) -> Optional.ofNullable(row.get("amount", Integer.class)))
+                .first()
+                .defaultIfEmpty(Optional.empty());
+    }
+
+    // the highest bids of every rank, oldest first, each as {rank, rsEventId, expired}
+    public Flux<int[]> findHighestBids(String keyword, LocalDateTime now) {
+        return databaseClient.execute("SELECT t.rank, t.rs_event_id, t.expires_at FROM trade t "
+                + "WHERE t.keyword = :keyword "
+                + "AND t.amount = (SELECT MAX(w.amount) FROM trade w WHERE w.keyword = t.keyword AND w.rank = t.rank) "
+                + "ORDER BY t.rank, t.id")
+                .bind("keyword", keyword)
+                .map((row, metadata) -> {
+                    LocalDateTime expiresAt = row.get("expires_at", LocalDateTime.class);
+                    return new int[]{
+                            row.get("rank", Integer.class),
+                            row.get("rs_event_id", Integer.class),
+                            expiresAt != null && !expiresAt.isAfter(now) ? 1 : 0};
+                })
+                .all();
+    }
+
+    public Mono<Void> insert(int amount, int rank, String keyword, int rsEventId, LocalDateTime expiresAt) {
+        return databaseClient.execute("INSERT INTO trade (amount, rank, keyword, rs_event_id, expires_at) "
+                + "VALUES (:amount, :rank, :keyword, :rsEventId, :expiresAt)")
+                .bind("amount", amount)
+                .bind("rank", rank)
+                .bind("keyword", keyword)
+                .bind("rsEventId", rsEventId)
+                .bind("expiresAt", expiresAt)
+                .then();
+    }
+}
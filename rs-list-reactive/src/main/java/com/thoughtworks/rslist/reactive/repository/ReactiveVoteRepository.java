@@ -0,0 +1,68 @@
+package com.thoughtworks.rslist.reactive.repository;
+
+import com.thoughtworks.rslist.domain.Vote;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@Repository
+public class ReactiveVoteRepository {
+
+    final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveVoteRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    // vote and user ids come from the table Hibernate allocates them from, so rows
+    // written by either stack never collide; run it in a transaction of its own
+    public Mono<Integer> nextId() {
+        return databaseClient.execute("UPDATE hibernate_sequence SET next_val = next_val + 1")
+                .fetch()
+                .rowsUpdated()
+                .then(databaseClient.execute("SELECT next_val - 1 AS id FROM hibernate_sequence")
+                        .map((row, metadata) -> row.get("id", Long.class).intValue())
+                        .one());
+    }
+
+    public Mono<Integer> debitUser(int userId, int voteNum) {
+        return databaseClient.execute("UPDATE user SET vote_num = vote_num - :voteNum "
+                + "WHERE id = :userId AND vote_num >= :voteNum")
+                .bind("voteNum", voteNum)
+                .bind("userId", userId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Void> insert(int id, Vote vote, int rsEventId) {
+        return databaseClient.execute("INSERT INTO vote (id, local_date_time, num, user_id, rs_event_id) "
+                + "VALUES (:id, :time, :num, :userId, :rsEventId)")
+                .bind("id", id)
+                .bind("time", vote.getTime() == null ? LocalDateTime.now() : vote.getTime())
+                .bind("num", vote.getVoteNum())
+                .bind("userId", vote.getUserId())
+                .bind("rsEventId", rsEventId)
+                .then();
+    }
+
+    public Flux<Vote> findAllByUserIdAndRsEventId(int userId, int rsEventId, int offset, int limit) {
+        return databaseClient.execute("SELECT user_id, rs_event_id, local_date_time, num FROM vote "
+                + "WHERE user_id = :userId AND rs_event_id = :rsEventId ORDER BY id LIMIT :limit OFFSET :offset")
+                .bind("userId", userId)
+                .bind("rsEventId", rsEventId)
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map((row, metadata) -> Vote.builder()
+                        .userId(row.get("user_id", Integer.class))
+                        .rsEventId(row.get("rs_event_id", Integer.class))
+                        .time(row.get("local_date_time", LocalDateTime.class))
+                        .voteNum(row.get("num", Integer.class))
+                        .build())
+                .all();
+    }
+}
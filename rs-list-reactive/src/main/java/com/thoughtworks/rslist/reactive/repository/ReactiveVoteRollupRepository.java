@@ -0,0 +1,38 @@
+package com.thoughtworks.rslist.reactive.repository;
+
+import com.thoughtworks.rslist.domain.RollupGranularity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+// The servlet nodes only roll up their own votes, so votes made here add themselves to
+// vote_rollup with the same upsert VoteRollupService flushes with.
+@Repository
+public class ReactiveVoteRollupRepository {
+
+    final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveVoteRollupRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Void> add(int rsEventId, int voteNum, LocalDateTime time) {
+        return upsert(rsEventId, RollupGranularity.MINUTE, voteNum, time)
+                .then(upsert(rsEventId, RollupGranularity.HOUR, voteNum, time));
+    }
+
+    private Mono<Void> upsert(int rsEventId, RollupGranularity granularity, int voteNum, LocalDateTime time) {
+        return databaseClient.execute("INSERT INTO vote_rollup (rs_event_id, granularity, bucket, vote_num, vote_count) "
+                + "VALUES (:rsEventId, :granularity, :bucket, :voteNum, 1) "
+                + "ON DUPLICATE KEY UPDATE vote_num = vote_num + VALUES(vote_num), vote_count = vote_count + 1")
+                .bind("rsEventId", rsEventId)
+                .bind("granularity", granularity.name())
+                .bind("bucket", granularity.truncate(time))
+                .bind("voteNum", voteNum)
+                .then();
+    }
+}
@@ -0,0 +1,161 @@
+package com.thoughtworks.rslist.reactive.service;
+
+import com.thoughtworks.rslist.domain.ChangeType;
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.exception.AmountNotEnoughException;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.reactive.repository.ReactiveChangeLogRepository;
+import com.thoughtworks.rslist.reactive.repository.ReactiveRsEventRepository;
+import com.thoughtworks.rslist.reactive.repository.ReactiveTradeRepository;
+import com.thoughtworks.rslist.reactive.repository.ReactiveVoteRepository;
+import com.thoughtworks.rslist.reactive.repository.ReactiveVoteRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class ReactiveRsService {
+
+    static final String GLOBAL_BOARD = "";
+
+    final ReactiveRsEventRepository rsEventRepository;
+    final ReactiveVoteRepository voteRepository;
+    final ReactiveTradeRepository tradeRepository;
+    final ReactiveChangeLogRepository changeLogRepository;
+    final ReactiveVoteRollupRepository voteRollupRepository;
+    final TransactionalOperator transactionalOperator;
+    final TransactionalOperator newTransactionalOperator;
+
+    @Autowired
+    public ReactiveRsService(ReactiveRsEventRepository rsEventRepository,
+                             ReactiveVoteRepository voteRepository,
+                             ReactiveTradeRepository tradeRepository,
+                             ReactiveChangeLogRepository changeLogRepository,
+                             ReactiveVoteRollupRepository voteRollupRepository,
+                             ReactiveTransactionManager transactionManager) {
+        this.rsEventRepository = rsEventRepository;
+        this.voteRepository = voteRepository;
+        this.tradeRepository = tradeRepository;
+        this.changeLogRepository = changeLogRepository;
+        this.voteRollupRepository = voteRollupRepository;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        this.newTransactionalOperator = TransactionalOperator.create(transactionManager,
+                new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+    }
+
+    // Organic events are read from a cursor in vote order and paid events are spliced
+    // in at their ranks as the cursor is consumed, so a subscriber that asks for the
+    // first ten events only pulls about ten rows, and a slow one slows the cursor down
+    // instead of buffering the list.
+    public Flux<RsEvent> getRankedRsEvents() {
+        return Mono.zip(rsEventRepository.count(), getPaidRsEvents())
+                .flatMapMany(countAndPaid -> {
+                    // a paid rank past the end of the list is never reached, so like the
+                    // servlet ranking that event keeps its organic place
+                    NavigableMap<Integer, RsEvent> paid =
+                            countAndPaid.getT2().headMap((int) (long) countAndPaid.getT1(), true);
+                    Set<Integer> paidIds = new HashSet<>();
+                    paid.values().forEach(rsEvent -> paidIds.add(rsEvent.getId()));
+                    AtomicInteger rank = new AtomicInteger(1);
+
+                    return rsEventRepository.findAllOrderByVoteNumDesc()
+                            .filter(rsEvent -> !paidIds.contains(rsEvent.getId()))
+                            .concatMapIterable(rsEvent -> {
+                                List<RsEvent> placed = new ArrayList<>(1);
+                                while (paid.containsKey(rank.get())) {
+                                    placed.add(paid.get(rank.getAndIncrement()));
+                                }
+                                placed.add(rsEvent);
+                                rank.incrementAndGet();
+                                return placed;
+                            })
+                            .concatWith(Flux.defer(() -> Flux.fromIterable(paid.tailMap(rank.get(), true).values())));
+                });
+    }
+
+    public Flux<RsEvent> getRankedRsEventsBetween(int start, int end) {
+        return getRankedRsEvents().skip(start - 1).take(end - start + 1);
+    }
+
+    // the first highest bid of each rank wins it; if that bid has expired the rank is
+    // free, exactly as RsService decides
+    private Mono<NavigableMap<Integer, RsEvent>> getPaidRsEvents() {
+        return tradeRepository.findHighestBids(GLOBAL_BOARD, LocalDateTime.now())
+                .collect(LinkedHashMap<Integer, int[]>::new, (winners, bid) -> winners.putIfAbsent(bid[0], bid))
+                .flatMap(winners -> {
+                    Map<Integer, Integer> rankByRsEventId = new LinkedHashMap<>();
+                    winners.values().stream()
+                            .filter(bid -> bid[2] == 0)
+                            .forEach(bid -> rankByRsEventId.putIfAbsent(bid[1], bid[0]));
+
+                    return rsEventRepository.findAllByIdIn(rankByRsEventId.keySet())
+                            .collect(TreeMap<Integer, RsEvent>::new,
+                                    (paid, rsEvent) -> paid.put(rankByRsEventId.get(rsEvent.getId()), rsEvent))
+                            .map(paid -> (NavigableMap<Integer, RsEvent>) paid);
+                });
+    }
+
+    public Mono<Void> vote(Vote vote, int rsEventId) {
+        LocalDateTime time = vote.getTime() == null ? LocalDateTime.now() : vote.getTime();
+        Vote timedVote = new Vote(vote.getUserId(), rsEventId, time, vote.getVoteNum());
+
+        // the conditional debit checks and spends the budget in one statement, so
+        // concurrent votes of one user can never overspend it
+        Mono<Void> work = voteRepository.debitUser(vote.getUserId(), vote.getVoteNum())
+                .flatMap(updated -> updated == 0
+                        ? Mono.<Integer>error(new RequestNotValidException("invalid vote"))
+                        : rsEventRepository.addVotes(rsEventId, vote.getVoteNum()))
+                .flatMap(updated -> updated == 0
+                        ? Mono.<Integer>error(new RequestNotValidException("invalid vote"))
+                        : newTransactionalOperator.transactional(voteRepository.nextId()))
+                .flatMap(id -> voteRepository.insert(id, timedVote, rsEventId))
+                .then(voteRollupRepository.add(rsEventId, vote.getVoteNum(), time))
+                .then(changeLogRepository.record(ChangeType.VOTE, rsEventId, null, vote.getVoteNum(), time));
+
+        return transactionalOperator.transactional(work);
+    }
+
+    public Mono<Void> buy(Trade trade, int rsEventId) {
+        String keyword = trade.getKeyword() == null ? GLOBAL_BOARD : trade.getKeyword();
+
+        Mono<Void> checkKeyword = keyword.equals(GLOBAL_BOARD)
+                ? Mono.empty()
+                : rsEventRepository.findKeywordById(rsEventId)
+                .flatMap(rsEventKeyword -> rsEventKeyword.isPresent() && keyword.equals(rsEventKeyword.get())
+                        ? Mono.<Void>empty()
+                        : Mono.<Void>error(new RequestNotValidException("invalid keyword")));
+
+        Mono<Void> work = checkKeyword
+                .then(tradeRepository.findCurrentAmountByKeywordAndRank(keyword, trade.getRank()))
+                .flatMap(currentAmount -> currentAmount.isPresent() && currentAmount.get() >= trade.getAmount()
+                        ? Mono.<Void>error(new AmountNotEnoughException())
+                        : tradeRepository.insert(trade.getAmount(), trade.getRank(), keyword, rsEventId,
+                        LocalDateTime.now().plusSeconds(trade.getDuration())))
+                .then(changeLogRepository.record(ChangeType.BUY, rsEventId, null, trade.getAmount(),
+                        LocalDateTime.now()));
+
+        return transactionalOperator.transactional(work);
+    }
+
+    public Flux<Vote> getVoteRecord(int userId, int rsEventId, int pageIndex, int pageSize) {
+        return voteRepository.findAllByUserIdAndRsEventId(userId, rsEventId, (pageIndex - 1) * pageSize, pageSize);
+    }
+}
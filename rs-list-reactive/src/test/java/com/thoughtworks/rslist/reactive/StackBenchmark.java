@@ -0,0 +1,82 @@
+package com.thoughtworks.rslist.reactive;
+
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Drives the same GET against the servlet and the reactive application with a fixed
+// number of concurrent connections and prints throughput and latency percentiles.
+// Both applications should point at the same database and be warmed up beforehand;
+// run it through the benchmark task of this module.
+public class StackBenchmark {
+
+    public static void main(String[] args) {
+        String servletUrl = args[0];
+        String reactiveUrl = args[1];
+        int connections = Integer.parseInt(args[2]);
+        int requests = Integer.parseInt(args[3]);
+        String path = args[4];
+
+        System.out.printf("%d requests of %s over %d connections%n", requests, path, connections);
+        run("servlet", servletUrl + path, connections, requests);
+        run("reactive", reactiveUrl + path, connections, requests);
+    }
+
+    private static void run(String name, String url, int connections, int requests) {
+        ConnectionProvider provider = ConnectionProvider.fixed(name, connections);
+        WebClient webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(provider)))
+                .build();
+
+        // one warm-up round per connection so connection setup is not measured
+        fire(webClient, url, connections, connections, new long[connections], new AtomicInteger());
+
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        long startedAt = System.nanoTime();
+        fire(webClient, url, connections, requests, latencies, errors);
+        long elapsed = System.nanoTime() - startedAt;
+        provider.dispose();
+
+        Arrays.sort(latencies);
+        System.out.printf("%-8s %8.0f req/s  p50 %6.1f ms  p99 %6.1f ms  p99.9 %6.1f ms  errors %d%n",
+                name,
+                requests / (elapsed / 1e9),
+                percentile(latencies, 0.50),
+                percentile(latencies, 0.99),
+                percentile(latencies, 0.999),
+                errors.get());
+    }
+
+    private static void fire(WebClient webClient, String url, int connections, int requests,
+                             long[] latencies, AtomicInteger errors) {
+        Flux.range(0, requests)
+                .flatMap(i -> {
+                    long sentAt = System.nanoTime();
+                    return webClient.get().uri(url)
+                            .exchange()
+                            .flatMap(response -> response.releaseBody().thenReturn(response.statusCode()))
+                            .doOnNext(status -> {
+                                if (!status.is2xxSuccessful()) {
+                                    errors.incrementAndGet();
+                                }
+                            })
+                            .doOnError(e -> errors.incrementAndGet())
+                            .onErrorResume(e -> Mono.empty())
+                            .doFinally(signal -> latencies[i] = System.nanoTime() - sentAt);
+                }, connections)
+                .blockLast(Duration.ofMinutes(30));
+    }
+
+    private static double percentile(long[] sortedNanos, double quantile) {
+        int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(quantile * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,169 @@
+package com.thoughtworks.rslist.reactive.api;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+class ReactiveRsControllerTest {
+
+    // the same in-memory database the application reaches through rs.r2dbc.url
+    static final String URL = "jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1;MODE=MySQL";
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    Connection connection;
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure().dataSource(URL, "", "").load().migrate();
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection(URL, "", "");
+        execute("INSERT INTO user (id, name, age, vote_num) VALUES (1, 'idolice', 19, 10)");
+        execute("INSERT INTO rs_event (id, event_name, keyword, vote_num, user_id) VALUES (1, 'first', 'k', 1, 1)");
+        execute("INSERT INTO rs_event (id, event_name, keyword, vote_num, user_id) VALUES (2, 'second', 'k', 2, 1)");
+        execute("INSERT INTO rs_event (id, event_name, keyword, vote_num, user_id) VALUES (3, 'third', 'k', 3, 1)");
+        execute("INSERT INTO rs_event (id, event_name, keyword, vote_num, user_id) VALUES (4, 'fourth', 'k', 4, 1)");
+        execute("INSERT INTO trade (amount, rank, rs_event_id) VALUES (100, 1, 1)");
+        execute("INSERT INTO trade (amount, rank, rs_event_id) VALUES (100, 3, 2)");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        execute("DELETE FROM change_log");
+        execute("DELETE FROM vote_rollup");
+        execute("DELETE FROM trade");
+        execute("DELETE FROM vote");
+        execute("DELETE FROM rs_event");
+        execute("DELETE FROM user");
+        connection.close();
+    }
+
+    @Test
+    void shouldRankPaidEventsAtTheirRanks() {
+        webTestClient.get().uri("/rs/list")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[*].id").isEqualTo(Arrays.asList(1, 4, 2, 3))
+                .jsonPath("$[0].userId").isEqualTo(1);
+    }
+
+    @Test
+    void shouldStreamTheRequestedWindow() {
+        StepVerifier.create(webTestClient.get().uri("/rs/list?start=2&end=3")
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(RsEvent.class)
+                .getResponseBody()
+                .map(RsEvent::getId))
+                .expectNext(4, 2)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldGetErrorWhenIndexInvalid() {
+        webTestClient.get().uri("/rs/list?start=3&end=1")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("invalid index");
+    }
+
+    @Test
+    void shouldVoteSuccess() throws SQLException {
+        webTestClient.post().uri("/rs/vote/{id}", 3)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"userId\":1,\"time\":\"2020-05-20T13:14:00\",\"voteNum\":3}")
+                .exchange()
+                .expectStatus().isOk();
+
+        assertEquals(7, queryForInt("SELECT vote_num FROM user WHERE id = 1"));
+        assertEquals(6, queryForInt("SELECT vote_num FROM rs_event WHERE id = 3"));
+        assertEquals(3, queryForInt("SELECT num FROM vote WHERE rs_event_id = 3"));
+        assertEquals(1, queryForInt("SELECT COUNT(*) FROM change_log WHERE type = 'VOTE'"));
+        assertEquals(3, queryForInt("SELECT vote_num FROM vote_rollup "
+                + "WHERE rs_event_id = 3 AND granularity = 'MINUTE' AND bucket = '2020-05-20 13:14:00'"));
+        assertEquals(3, queryForInt("SELECT vote_num FROM vote_rollup "
+                + "WHERE rs_event_id = 3 AND granularity = 'HOUR' AND bucket = '2020-05-20 13:00:00'"));
+
+        webTestClient.get().uri("/voteRecord?userId=1&rsEventId=3&pageIndex=1")
+                .exchange()
+                .expectBody()
+                .jsonPath("$[0].voteNum").isEqualTo(3);
+    }
+
+    @Test
+    void shouldRollBackVoteBeyondBudget() throws SQLException {
+        webTestClient.post().uri("/rs/vote/{id}", 3)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"userId\":1,\"voteNum\":11}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("invalid vote");
+
+        assertEquals(10, queryForInt("SELECT vote_num FROM user WHERE id = 1"));
+        assertEquals(0, queryForInt("SELECT COUNT(*) FROM vote"));
+        assertEquals(0, queryForInt("SELECT COUNT(*) FROM vote_rollup"));
+    }
+
+    @Test
+    void shouldBuyFailWhenNoEnoughAmount() throws SQLException {
+        webTestClient.post().uri("/rs/buy/{id}", 4)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"amount\":90,\"rank\":1}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("amount not enough");
+
+        webTestClient.post().uri("/rs/buy/{id}", 4)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"amount\":101,\"rank\":1}")
+                .exchange()
+                .expectStatus().isOk();
+
+        assertEquals(3, queryForInt("SELECT COUNT(*) FROM trade"));
+        assertEquals(1, queryForInt("SELECT COUNT(*) FROM change_log WHERE type = 'BUY'"));
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private int queryForInt(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.thoughtworks.rslist.api;
+
+import com.thoughtworks.rslist.domain.AuditAction;
+import com.thoughtworks.rslist.exception.TooManyRequestsException;
+import com.thoughtworks.rslist.service.AdmissionControl;
+import com.thoughtworks.rslist.service.VoteAuditLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+// Only rate limits by client address. How many writes run or wait at once is bounded
+// by the write executor's lanes, which release their permits when the task finishes
+// rather than when the async response has been written.
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    AdmissionControl admissionControl;
+
+    @Autowired
+    VoteAuditLog voteAuditLog;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // an async write is dispatched a second time to render its result; it was
+        // admitted on the first dispatch
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        long startedAt = System.nanoTime();
+        if (!admissionControl.tryAcquireIp(request.getRemoteAddr())) {
+            TooManyRequestsException e = new TooManyRequestsException();
+            response.setStatus(e.httpStatus.value());
+            audit(request, e, startedAt);
+            return false;
+        }
+        return true;
+    }
+
+    // the body is not read yet, so the user and amount of a rejected request are unknown
+    private void audit(HttpServletRequest request, RuntimeException rejection, long startedAt) {
+        AuditAction action = request.getRequestURI().contains("/rs/buy/") ? AuditAction.BUY : AuditAction.VOTE;
+        voteAuditLog.publish(action, null, getRsEventId(request), 0, false, rejection.getMessage(),
+                System.nanoTime() - startedAt);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int getRsEventId(HttpServletRequest request) {
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables == null || variables.size() != 1) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(variables.values().iterator().next());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
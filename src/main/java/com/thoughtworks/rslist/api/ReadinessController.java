@@ -0,0 +1,23 @@
+package com.thoughtworks.rslist.api;
+
+import com.thoughtworks.rslist.domain.WarmUpReport;
+import com.thoughtworks.rslist.service.WarmUpService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class ReadinessController {
+
+    @Autowired
+    WarmUpService warmUpService;
+
+    @GetMapping("/ready")
+    public ResponseEntity<WarmUpReport> getReadiness() {
+        WarmUpReport report = warmUpService.getReport();
+        HttpStatus status = report.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status).body(report);
+    }
+}
@@ -1,17 +1,35 @@
 package com.thoughtworks.rslist.api;
 
+import com.thoughtworks.rslist.domain.AuditAction;
+import com.thoughtworks.rslist.domain.RankPoint;
+import com.thoughtworks.rslist.domain.RankingChanges;
+import com.thoughtworks.rslist.domain.RankingOrder;
+import com.thoughtworks.rslist.domain.RankingSnapshot;
+import com.thoughtworks.rslist.domain.RollupGranularity;
 import com.thoughtworks.rslist.domain.RsEvent;
 import com.thoughtworks.rslist.domain.Trade;
 import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.domain.VoteRollup;
 import com.thoughtworks.rslist.dto.RsEventDto;
-import com.thoughtworks.rslist.dto.UserDto;
 import com.thoughtworks.rslist.exception.AmountNotEnoughException;
 import com.thoughtworks.rslist.exception.Error;
 import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.exception.ServiceUnavailableException;
+import com.thoughtworks.rslist.exception.TooManyRequestsException;
 import com.thoughtworks.rslist.repository.RsEventRepository;
-import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.service.AdmissionControl;
+import com.thoughtworks.rslist.service.RankHistoryService;
+import com.thoughtworks.rslist.service.RankingChangeFeed;
+import com.thoughtworks.rslist.service.RankingSnapshotService;
 import com.thoughtworks.rslist.service.RsService;
+import com.thoughtworks.rslist.service.VoteAuditLog;
+import com.thoughtworks.rslist.service.VoteRollupService;
+import com.thoughtworks.rslist.service.WriteExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -21,11 +39,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @Validated
@@ -35,69 +55,178 @@ public class RsController {
     RsEventRepository rsEventRepository;
 
     @Autowired
-    UserRepository userRepository;
+    RsService rsService;
 
     @Autowired
-    RsService rsService;
+    AdmissionControl admissionControl;
+
+    @Autowired
+    RankingSnapshotService rankingSnapshotService;
+
+    @Autowired
+    VoteAuditLog voteAuditLog;
+
+    @Autowired
+    RankingChangeFeed rankingChangeFeed;
+
+    @Autowired
+    RankHistoryService rankHistoryService;
+
+    @Autowired
+    VoteRollupService voteRollupService;
+
+    @Autowired
+    WriteExecutor writeExecutor;
 
     @GetMapping("/rs/list")
     public ResponseEntity<List<RsEvent>> getRsEventListBetween(@RequestParam(required = false) Integer start,
-                                                               @RequestParam(required = false) Integer end) {
-        List<RsEvent> rsEvents = rsService.getAllRsEvents();
+                                                               @RequestParam(required = false) Integer end,
+                                                               @RequestParam(defaultValue = "votes") String order,
+                                                               @RequestParam(required = false) String keyword) {
+        RankingOrder rankingOrder = parseRankingOrder(order);
+
+        if (keyword != null) {
+            List<RsEvent> rsEvents = rsService.getKeywordRsEvents(keyword, rankingOrder);
+            if (start == null || end == null) {
+                return ResponseEntity.ok(rsEvents);
+            }
+            return ResponseEntity.ok(rsEvents.subList(Math.min(start - 1, rsEvents.size()),
+                    Math.min(end, rsEvents.size())));
+        }
 
         if (start == null || end == null) {
-            return ResponseEntity.ok(rsEvents);
+            RankingSnapshot snapshot = rankingSnapshotService.getAllRsEvents(rankingOrder);
+
+            if (!snapshot.isStale()) {
+                return ResponseEntity.ok(snapshot.getRsEvents());
+            }
+
+            long age = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - snapshot.getTakenAt());
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.AGE, String.valueOf(age))
+                    .body(snapshot.getRsEvents());
         }
 
-        return ResponseEntity.ok(rsEvents.subList(start - 1, end));
+        return ResponseEntity.ok(rsService.getRsEventsBetween(start, end, rankingOrder));
+    }
+
+    @GetMapping("/rs/list/changes")
+    public ResponseEntity<RankingChanges> getRsEventListChanges(@RequestParam(required = false) String epoch,
+                                                                @RequestParam long since) {
+        return ResponseEntity.ok(rankingChangeFeed.getChangesSince(epoch, since));
+    }
+
+    @GetMapping("/rs/search")
+    public ResponseEntity<List<RsEvent>> searchRsEvents(@RequestParam String q,
+                                                        @RequestParam(defaultValue = "1") int pageIndex,
+                                                        @RequestParam(defaultValue = "10") int pageSize) {
+        if (pageIndex < 1 || pageSize < 1) {
+            throw new RequestNotValidException("invalid page");
+        }
+        return ResponseEntity.ok(rsService.searchRsEvents(q, pageIndex, pageSize));
     }
 
     @GetMapping("/rs/{index}")
     public ResponseEntity<RsEvent> getRsEvent(@PathVariable int index) {
-        List<RsEvent> rsEvents =
-                rsEventRepository.findAll().stream()
-                        .map(
-                                item ->
-                                        RsEvent.builder()
-                                                .eventName(item.getEventName())
-                                                .keyword(item.getKeyword())
-                                                .userId(item.getId())
-                                                .voteNum(item.getVoteNum())
-                                                .build())
-                        .collect(Collectors.toList());
-        if (index < 1 || index > rsEvents.size()) {
+        if (index < 1) {
             throw new RequestNotValidException("invalid index");
         }
-        return ResponseEntity.ok(rsEvents.get(index - 1));
+        RsEventDto rsEventDto = rsEventRepository.findAllByOrderByIdAsc(PageRequest.of(index - 1, 1)).stream()
+                .findFirst()
+                .orElseThrow(() -> new RequestNotValidException("invalid index"));
+        return ResponseEntity.ok(RsEvent.builder()
+                .eventName(rsEventDto.getEventName())
+                .keyword(rsEventDto.getKeyword())
+                .userId(rsEventDto.getId())
+                .voteNum(rsEventDto.getVoteNum())
+                .build());
+    }
+
+    @GetMapping("/rs/{id}/history")
+    public ResponseEntity<List<RankPoint>> getRsEventHistory(
+            @PathVariable int id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (from.isAfter(to)) {
+            throw new RequestNotValidException("invalid range");
+        }
+        return ResponseEntity.ok(rankHistoryService.getHistory(id, from, to));
+    }
+
+    @GetMapping("/rs/{id}/votes")
+    public ResponseEntity<List<VoteRollup>> getRsEventVotes(
+            @PathVariable int id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "hour") String granularity) {
+        RollupGranularity rollupGranularity = parseRollupGranularity(granularity);
+        if (from.isAfter(to)) {
+            throw new RequestNotValidException("invalid range");
+        }
+        return ResponseEntity.ok(voteRollupService.getVoteRollups(id, from, to, rollupGranularity));
     }
 
     @PostMapping("/rs/event")
     public ResponseEntity addRsEvent(@RequestBody @Valid RsEvent rsEvent) {
-        Optional<UserDto> userDto = userRepository.findById(rsEvent.getUserId());
-        if (!userDto.isPresent()) {
-            return ResponseEntity.badRequest().build();
-        }
-        RsEventDto build =
-                RsEventDto.builder()
-                        .keyword(rsEvent.getKeyword())
-                        .eventName(rsEvent.getEventName())
-                        .voteNum(0)
-                        .user(userDto.get())
-                        .build();
-        rsEventRepository.save(build);
+        rsService.addRsEvent(rsEvent);
         return ResponseEntity.created(null).build();
     }
 
     @PostMapping("/rs/vote/{id}")
-    public ResponseEntity vote(@PathVariable int id, @RequestBody Vote vote) {
-        rsService.vote(vote, id);
-        return ResponseEntity.ok().build();
+    public CompletableFuture<ResponseEntity<Void>> vote(@PathVariable int id, @RequestBody Vote vote) {
+        long startedAt = System.nanoTime();
+        if (!admissionControl.tryAcquireUser(vote.getUserId())) {
+            TooManyRequestsException e = new TooManyRequestsException();
+            audit(AuditAction.VOTE, vote.getUserId(), id, vote.getVoteNum(), e, startedAt);
+            throw e;
+        }
+        return write(AuditAction.VOTE, vote.getUserId(), id, vote.getVoteNum(), startedAt,
+                () -> rsService.vote(vote, id));
     }
 
     @PostMapping("/rs/buy/{rsEventId}")
-    public ResponseEntity buy(@PathVariable int rsEventId, @RequestBody Trade trade) {
-        rsService.buy(trade, rsEventId);
-        return ResponseEntity.ok().build();
+    public CompletableFuture<ResponseEntity<Void>> buy(@PathVariable int rsEventId, @RequestBody @Valid Trade trade) {
+        long startedAt = System.nanoTime();
+        return write(AuditAction.BUY, null, rsEventId, trade.getAmount(), startedAt,
+                () -> rsService.buy(trade, rsEventId));
+    }
+
+    // the servlet thread is released here; the response is written once the write
+    // executor has run the task, and failures reach the exception handlers below. A
+    // task still running at spring.mvc.async.request-timeout is answered with 504
+    private CompletableFuture<ResponseEntity<Void>> write(AuditAction action, Integer userId, int rsEventId,
+                                                          int amount, long startedAt, Runnable task) {
+        return writeExecutor.submit(action, task)
+                .whenComplete((result, e) -> audit(action, userId, rsEventId, amount, e, startedAt))
+                .thenApply(result -> ResponseEntity.ok().<Void>build());
+    }
+
+    private void audit(AuditAction action, Integer userId, int rsEventId, int amount,
+                       Throwable rejection, long startedAt) {
+        String reason = null;
+        if (rejection != null) {
+            reason = rejection.getMessage() != null ? rejection.getMessage() : rejection.getClass().getSimpleName();
+        }
+        voteAuditLog.publish(action, userId, rsEventId, amount, rejection == null, reason,
+                System.nanoTime() - startedAt);
+    }
+
+    private RankingOrder parseRankingOrder(String order) {
+        for (RankingOrder rankingOrder : RankingOrder.values()) {
+            if (rankingOrder.name().equalsIgnoreCase(order)) {
+                return rankingOrder;
+            }
+        }
+        throw new RequestNotValidException("invalid order");
+    }
+
+    private RollupGranularity parseRollupGranularity(String granularity) {
+        for (RollupGranularity rollupGranularity : RollupGranularity.values()) {
+            if (rollupGranularity.name().equalsIgnoreCase(granularity)) {
+                return rollupGranularity;
+            }
+        }
+        throw new RequestNotValidException("invalid granularity");
     }
 
     @ExceptionHandler(RequestNotValidException.class)
@@ -113,4 +242,26 @@ public class RsController {
         error.setError(e.getMessage());
         return ResponseEntity.status(e.httpStatus).body(error);
     }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Error> handleTooManyRequestsException(TooManyRequestsException e) {
+        Error error = new Error();
+        error.setError(e.getMessage());
+        return ResponseEntity.status(e.httpStatus).body(error);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Error> handleServiceUnavailableException(ServiceUnavailableException e) {
+        Error error = new Error();
+        error.setError(e.getMessage());
+        return ResponseEntity.status(e.httpStatus).body(error);
+    }
+
+    // unlike a 503, the write may still commit after this response
+    @ExceptionHandler(AsyncRequestTimeoutException.class)
+    public ResponseEntity<Error> handleAsyncRequestTimeoutException(AsyncRequestTimeoutException e) {
+        Error error = new Error();
+        error.setError("write outcome unknown");
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(error);
+    }
 }
@@ -0,0 +1,39 @@
+package com.thoughtworks.rslist.api;
+
+import com.thoughtworks.rslist.domain.ArchivedTrade;
+import com.thoughtworks.rslist.exception.Error;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.service.TradeCompactionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class TradeController {
+
+    @Autowired
+    TradeCompactionService tradeCompactionService;
+
+    @GetMapping("/trade/archive")
+    public ResponseEntity<List<ArchivedTrade>> getArchivedTrades(@RequestParam int rank,
+                                                                 @RequestParam(defaultValue = "") String keyword,
+                                                                 @RequestParam(defaultValue = "1") int pageIndex,
+                                                                 @RequestParam(defaultValue = "10") int pageSize) {
+        if (pageIndex < 1 || pageSize < 1) {
+            throw new RequestNotValidException("invalid page");
+        }
+        return ResponseEntity.ok(tradeCompactionService.getArchivedTrades(keyword, rank, pageIndex, pageSize));
+    }
+
+    @ExceptionHandler(RequestNotValidException.class)
+    public ResponseEntity<Error> handleRequestNotValidException(RequestNotValidException e) {
+        Error error = new Error();
+        error.setError(e.getMessage());
+        return ResponseEntity.badRequest().body(error);
+    }
+}
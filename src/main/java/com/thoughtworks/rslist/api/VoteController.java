@@ -1,22 +1,42 @@
 package com.thoughtworks.rslist.api;
 
+import com.thoughtworks.rslist.domain.ExportFormat;
 import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.exception.Error;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.exception.ServiceUnavailableException;
 import com.thoughtworks.rslist.repository.VoteRepository;
+import com.thoughtworks.rslist.service.VoteExportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 public class VoteController {
   @Autowired VoteRepository voteRepository;
 
+  @Autowired VoteExportService voteExportService;
+
   @GetMapping("/voteRecord")
   public ResponseEntity<List<Vote>> getVoteRecord(
       @RequestParam int userId, @RequestParam int rsEventId, @RequestParam int pageIndex) {
@@ -33,4 +53,75 @@ public class VoteController {
                         .build())
             .collect(Collectors.toList()));
   }
+
+  @GetMapping("/votes/export")
+  public void exportVotes(
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime to,
+      @RequestParam(required = false) Integer rsEventId,
+      @RequestParam(defaultValue = "csv") String format,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+      HttpServletResponse response)
+      throws IOException {
+    ExportFormat exportFormat = parseExportFormat(format);
+    if (from != null && to != null && from.isAfter(to)) {
+      throw new RequestNotValidException("invalid range");
+    }
+
+    if (!voteExportService.tryStartExport()) {
+      throw new ServiceUnavailableException();
+    }
+    try {
+      writeExport(from, to, rsEventId, exportFormat, acceptEncoding, response);
+    } finally {
+      voteExportService.finishExport();
+    }
+  }
+
+  private void writeExport(LocalDateTime from, LocalDateTime to, Integer rsEventId, ExportFormat exportFormat,
+                           String acceptEncoding, HttpServletResponse response) throws IOException {
+    boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+    response.setContentType(exportFormat.getContentType());
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    response.setHeader(
+        HttpHeaders.CONTENT_DISPOSITION,
+        "attachment; filename=\"votes." + exportFormat.name().toLowerCase() + "\"");
+    if (gzip) {
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+
+    // compressed as it is written; closing the writer finishes the gzip trailer
+    OutputStream out = response.getOutputStream();
+    if (gzip) {
+      out = new GZIPOutputStream(out, 8192);
+    }
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+      voteExportService.export(from, to, rsEventId, exportFormat, writer);
+    }
+  }
+
+  private ExportFormat parseExportFormat(String format) {
+    for (ExportFormat exportFormat : ExportFormat.values()) {
+      if (exportFormat.name().equalsIgnoreCase(format)) {
+        return exportFormat;
+      }
+    }
+    throw new RequestNotValidException("invalid format");
+  }
+
+  @ExceptionHandler(RequestNotValidException.class)
+  public ResponseEntity<Error> handleRequestNotValidException(RequestNotValidException e) {
+    Error error = new Error();
+    error.setError(e.getMessage());
+    return ResponseEntity.badRequest().body(error);
+  }
+
+  @ExceptionHandler(ServiceUnavailableException.class)
+  public ResponseEntity<Error> handleServiceUnavailableException(ServiceUnavailableException e) {
+    Error error = new Error();
+    error.setError(e.getMessage());
+    return ResponseEntity.status(e.httpStatus).body(error);
+  }
 }
@@ -0,0 +1,29 @@
+package com.thoughtworks.rslist.config;
+
+import com.thoughtworks.rslist.service.ConnectionPoolMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DataSourceConfig {
+
+    // Hikari only takes a metrics tracker before its pool starts, and Spring Boot installs
+    // its plain Micrometer one unless a tracker is already set. The monitor is looked up
+    // when the pool starts, so the data source does not have to wait for the meter registry.
+    @Bean
+    public static BeanPostProcessor connectionPoolMonitorPostProcessor(ObjectProvider<ConnectionPoolMonitor> monitor) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource) {
+                    ((HikariDataSource) bean).setMetricsTrackerFactory(
+                            (poolName, poolStats) -> monitor.getObject().create(poolName, poolStats));
+                }
+                return bean;
+            }
+        };
+    }
+}
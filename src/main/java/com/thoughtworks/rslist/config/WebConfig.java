@@ -0,0 +1,40 @@
+package com.thoughtworks.rslist.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.thoughtworks.rslist.api.AdmissionInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder;
+
+    @Autowired
+    AdmissionInterceptor admissionInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionInterceptor).addPathPatterns("/rs/vote/**", "/rs/buy/**");
+    }
+
+    // CBOR goes after the JSON converter, so clients without an explicit
+    // "Accept: application/cbor" keep getting JSON.
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter);
+        converters.add(new MappingJackson2CborHttpMessageConverter(
+                jackson2ObjectMapperBuilder
+                        .createXmlMapper(false)
+                        .factory(new CBORFactory())
+                        .build()));
+    }
+}
@@ -0,0 +1,6 @@
+package com.thoughtworks.rslist.domain;
+
+public enum AuditAction {
+    VOTE,
+    BUY,
+}
@@ -0,0 +1,10 @@
+package com.thoughtworks.rslist.domain;
+
+public enum ChangeType {
+    ADD,
+    VOTE,
+    BUY,
+    EXPIRE,
+    REGISTER,
+    DELETE
+}
@@ -0,0 +1,25 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RankingChange {
+
+    private long version;
+
+    private int rsEventId;
+
+    private int rank;
+
+    private boolean paid;
+
+    private boolean removed;
+
+    private RsEvent rsEvent;
+}
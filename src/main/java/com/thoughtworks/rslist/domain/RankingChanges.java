@@ -0,0 +1,21 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RankingChanges {
+
+    private String epoch;
+
+    private long version;
+
+    private boolean resync;
+
+    private List<RankingChange> changes;
+}
@@ -0,0 +1,6 @@
+package com.thoughtworks.rslist.domain;
+
+public enum RankingOrder {
+    VOTES,
+    TRENDING
+}
@@ -0,0 +1,21 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@AllArgsConstructor
+@Data
+public class RankingSnapshot {
+
+    private List<RsEvent> rsEvents;
+
+    private long takenAt;
+
+    private boolean stale;
+
+    public RankingSnapshot asStale() {
+        return new RankingSnapshot(rsEvents, takenAt, true);
+    }
+}
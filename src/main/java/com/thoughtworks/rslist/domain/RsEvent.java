@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 import java.io.Serializable;
 
 @NoArgsConstructor
@@ -20,6 +21,7 @@ public class RsEvent implements Serializable {
     private String eventName;
 
     @NotNull
+    @Size(max = 191)
     private String keyword;
 
     private int voteNum;
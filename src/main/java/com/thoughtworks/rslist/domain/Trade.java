@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 
 @Data
 @NoArgsConstructor
@@ -21,4 +22,11 @@ public class Trade {
     @NotNull
     @Min(1)
     private int rank;
+
+    @Size(max = 191)
+    private String keyword;
+
+    @Min(1)
+    @Builder.Default
+    private int duration = 86400;
 }
@@ -0,0 +1,19 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class VoteRollup {
+
+    private LocalDateTime time;
+
+    private long voteNum;
+
+    private long voteCount;
+}
@@ -0,0 +1,20 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class WarmUpReport {
+
+    private boolean ready;
+
+    private Map<String, Long> timings;
+
+    private List<String> failedSteps;
+}
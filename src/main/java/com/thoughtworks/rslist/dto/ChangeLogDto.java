@@ -0,0 +1,44 @@
+package com.thoughtworks.rslist.dto;
+
+import com.thoughtworks.rslist.domain.ChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "change_log")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeLogDto {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String nodeId;
+
+    @Enumerated(EnumType.STRING)
+    private ChangeType type;
+
+    private Integer rsEventId;
+
+    private Integer userId;
+
+    private Integer amount;
+
+    private LocalDateTime occurredAt;
+
+    private LocalDateTime createdAt;
+}
@@ -4,8 +4,12 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
@@ -17,10 +21,17 @@ import javax.persistence.Table;
 @AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "rsEvent")
+@EntityListeners(RsEventDtoListener.class)
 public class RsEventDto {
-  @Id @GeneratedValue private int id;
+  // ids come from the hibernate_sequence table on every database, H2 included
+  @Id
+  @GeneratedValue(generator = "ids")
+  @GenericGenerator(name = "ids", strategy = "enhanced-sequence", parameters = {
+      @Parameter(name = "sequence_name", value = "hibernate_sequence"),
+      @Parameter(name = "force_table_use", value = "true")})
+  private int id;
   private String eventName;
   private String keyword;
   private int voteNum;
-  @ManyToOne private UserDto user;
+  @ManyToOne(fetch = FetchType.LAZY) private UserDto user;
 }
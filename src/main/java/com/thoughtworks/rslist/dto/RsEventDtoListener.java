@@ -0,0 +1,27 @@
+package com.thoughtworks.rslist.dto;
+
+import com.thoughtworks.rslist.event.RsEventAddedEvent;
+import com.thoughtworks.rslist.event.RsEventDeletedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import java.util.Collections;
+
+public class RsEventDtoListener {
+
+    @Autowired
+    ApplicationEventPublisher applicationEventPublisher;
+
+    @PostPersist
+    public void postPersist(RsEventDto rsEventDto) {
+        applicationEventPublisher.publishEvent(new RsEventAddedEvent(rsEventDto));
+    }
+
+    @PostRemove
+    public void postRemove(RsEventDto rsEventDto) {
+        applicationEventPublisher.publishEvent(
+                new RsEventDeletedEvent(Collections.singletonList(rsEventDto.getId())));
+    }
+}
@@ -0,0 +1,33 @@
+package com.thoughtworks.rslist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "trade_archive")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeArchiveDto {
+
+    @Id
+    private Integer id;
+
+    private Integer amount;
+
+    private Integer rank;
+
+    private String keyword;
+
+    private Integer rsEventId;
+
+    private LocalDateTime archivedAt;
+}
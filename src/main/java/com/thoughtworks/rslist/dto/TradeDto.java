@@ -6,12 +6,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "trade")
@@ -29,7 +31,13 @@ public class TradeDto {
 
     private Integer rank;
 
-    @ManyToOne
+    // the board the rank was bought on; empty for the global board
+    @Builder.Default
+    private String keyword = "";
+
+    private LocalDateTime expiresAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "rs_event_id")
     private RsEventDto rsEventDto;
 }
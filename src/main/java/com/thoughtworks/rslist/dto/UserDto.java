@@ -4,10 +4,13 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
@@ -16,13 +19,17 @@ import java.util.List;
 
 @Entity
 @Table(name = "user")
+@EntityListeners(UserDtoListener.class)
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserDto {
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "ids")
+    @GenericGenerator(name = "ids", strategy = "enhanced-sequence", parameters = {
+            @Parameter(name = "sequence_name", value = "hibernate_sequence"),
+            @Parameter(name = "force_table_use", value = "true")})
     private int id;
 
     @Column(name = "name")
@@ -0,0 +1,18 @@
+package com.thoughtworks.rslist.dto;
+
+import com.thoughtworks.rslist.event.UserAddedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.PostPersist;
+
+public class UserDtoListener {
+
+    @Autowired
+    ApplicationEventPublisher applicationEventPublisher;
+
+    @PostPersist
+    public void postPersist(UserDto userDto) {
+        applicationEventPublisher.publishEvent(new UserAddedEvent(userDto));
+    }
+}
@@ -4,8 +4,11 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
@@ -20,11 +23,16 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Table(name = "vote")
 public class VoteDto {
-  @Id @GeneratedValue private int id;
+  @Id
+  @GeneratedValue(generator = "ids")
+  @GenericGenerator(name = "ids", strategy = "enhanced-sequence", parameters = {
+      @Parameter(name = "sequence_name", value = "hibernate_sequence"),
+      @Parameter(name = "force_table_use", value = "true")})
+  private int id;
 
   private LocalDateTime localDateTime;
 
   private int num;
-  @ManyToOne @JoinColumn(name = "user_id") private UserDto user;
-  @ManyToOne @JoinColumn(name = "rs_event_id") private RsEventDto rsEvent;
+  @ManyToOne(fetch = FetchType.LAZY) @JoinColumn(name = "user_id") private UserDto user;
+  @ManyToOne(fetch = FetchType.LAZY) @JoinColumn(name = "rs_event_id") private RsEventDto rsEvent;
 }
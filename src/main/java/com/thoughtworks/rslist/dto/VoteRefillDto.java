@@ -0,0 +1,28 @@
+package com.thoughtworks.rslist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "vote_refill")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoteRefillDto {
+
+    @Id
+    private LocalDateTime periodStart;
+
+    // every user with an id up to and including this one has been topped up
+    private int lastUserId;
+
+    private LocalDateTime completedAt;
+}
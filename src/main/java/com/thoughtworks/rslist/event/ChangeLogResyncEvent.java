@@ -0,0 +1,10 @@
+package com.thoughtworks.rslist.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ChangeLogResyncEvent {
+    private long abandonedIds;
+}
@@ -0,0 +1,11 @@
+package com.thoughtworks.rslist.event;
+
+import com.thoughtworks.rslist.dto.RsEventDto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RsEventAddedEvent {
+    private RsEventDto rsEventDto;
+}
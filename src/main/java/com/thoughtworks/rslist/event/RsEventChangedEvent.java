@@ -0,0 +1,22 @@
+package com.thoughtworks.rslist.event;
+
+import com.thoughtworks.rslist.domain.ChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RsEventChangedEvent {
+    private ChangeType type;
+    private int rsEventId;
+    private int userId;
+    private int amount;
+    private LocalDateTime time;
+    private boolean remote;
+}
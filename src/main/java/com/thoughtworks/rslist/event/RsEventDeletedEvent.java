@@ -0,0 +1,12 @@
+package com.thoughtworks.rslist.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class RsEventDeletedEvent {
+    private List<Integer> rsEventIds;
+}
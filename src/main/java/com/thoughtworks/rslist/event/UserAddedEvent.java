@@ -0,0 +1,11 @@
+package com.thoughtworks.rslist.event;
+
+import com.thoughtworks.rslist.dto.UserDto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class UserAddedEvent {
+    private UserDto userDto;
+}
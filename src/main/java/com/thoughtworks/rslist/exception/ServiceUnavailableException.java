@@ -0,0 +1,12 @@
+package com.thoughtworks.rslist.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class ServiceUnavailableException extends RuntimeException {
+
+    public final HttpStatus httpStatus = HttpStatus.SERVICE_UNAVAILABLE;
+
+    public ServiceUnavailableException() {
+        super("service unavailable");
+    }
+}
@@ -0,0 +1,12 @@
+package com.thoughtworks.rslist.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class TooManyRequestsException extends RuntimeException {
+
+    public final HttpStatus httpStatus = HttpStatus.TOO_MANY_REQUESTS;
+
+    public TooManyRequestsException() {
+        super("too many requests");
+    }
+}
@@ -0,0 +1,34 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.dto.ChangeLogDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ChangeLogRepository extends CrudRepository<ChangeLogDto, Long> {
+
+    List<ChangeLogDto> findAll();
+
+    List<ChangeLogDto> findAllByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+    List<ChangeLogDto> findAllByIdIn(Collection<Long> ids);
+
+    @Query("SELECT MAX(c.id) FROM ChangeLogDto c")
+    Optional<Long> findMaxId();
+
+    @Modifying
+    @Query(value = "INSERT INTO change_log (node_id, type, rs_event_id, amount, occurred_at, created_at) "
+            + "SELECT :nodeId, 'DELETE', id, 0, :now, :now FROM rs_event WHERE user_id = :userId",
+            nativeQuery = true)
+    int recordDeletedRsEventsOfUser(String nodeId, int userId, LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM ChangeLogDto c WHERE c.createdAt < :createdAt")
+    int bulkDeleteByCreatedAtBefore(LocalDateTime createdAt);
+}
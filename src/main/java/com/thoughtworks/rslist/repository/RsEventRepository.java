@@ -1,14 +1,58 @@
 package com.thoughtworks.rslist.repository;
 
 import com.thoughtworks.rslist.dto.RsEventDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface RsEventRepository extends CrudRepository<RsEventDto, Integer> {
   List<RsEventDto> findAll();
 
+  List<RsEventDto> findAllByOrderByIdAsc(Pageable pageable);
+
+  List<RsEventDto> findAllByKeyword(String keyword);
+
+  List<RsEventDto> findAllByOrderByVoteNumDescIdAsc(Pageable pageable);
+
+  // each row is {id, voteNum}
+  @Query("SELECT e.id, e.voteNum FROM RsEventDto e WHERE e.id IN :ids")
+  List<Object[]> findVoteNumsByIdIn(Collection<Integer> ids);
+
+  @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+  @Query("SELECT e.id FROM RsEventDto e ORDER BY e.voteNum DESC, e.id ASC")
+  Stream<Integer> streamIdsInVoteOrder();
+
+  @Query("SELECT e.id FROM RsEventDto e")
+  List<Integer> findAllIds();
+
   @Transactional
   void deleteAllByUserId(int userId);
+
+  @Query("SELECT e.id FROM RsEventDto e WHERE e.user.id = :userId")
+  List<Integer> findIdsByUserId(int userId);
+
+  @Modifying
+  @Query(
+      value =
+          "UPDATE rs_event SET vote_num = vote_num - "
+              + "(SELECT COALESCE(SUM(v.num), 0) FROM vote v "
+              + "WHERE v.rs_event_id = rs_event.id AND v.user_id = :userId) "
+              + "WHERE id IN (SELECT v.rs_event_id FROM vote v WHERE v.user_id = :userId)",
+      nativeQuery = true)
+  int subtractVotesByUserId(int userId);
+
+  @Modifying
+  @Query("DELETE FROM RsEventDto e WHERE e.user.id = :userId")
+  int bulkDeleteByUserId(int userId);
 }
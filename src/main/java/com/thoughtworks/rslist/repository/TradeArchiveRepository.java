@@ -0,0 +1,27 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.dto.TradeArchiveDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TradeArchiveRepository extends CrudRepository<TradeArchiveDto, Integer> {
+
+    List<TradeArchiveDto> findAll();
+
+    List<TradeArchiveDto> findAllByKeywordAndRankOrderByIdDesc(String keyword, int rank, Pageable pageable);
+
+    // held until the calling transaction ends, so one node compacts at a time
+    @Query(value = "SELECT name FROM job_lock WHERE name = 'trade-compaction' FOR UPDATE", nativeQuery = true)
+    String lockCompaction();
+
+    @Modifying
+    @Query(value = "INSERT INTO trade_archive (id, amount, rank, keyword, rs_event_id, archived_at) "
+            + "SELECT id, amount, rank, keyword, rs_event_id, :archivedAt FROM trade WHERE id IN :ids",
+            nativeQuery = true)
+    int archiveTradesByIds(List<Integer> ids, LocalDateTime archivedAt);
+}
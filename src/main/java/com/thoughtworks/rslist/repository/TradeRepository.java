@@ -1,6 +1,8 @@
 package com.thoughtworks.rslist.repository;
 
 import com.thoughtworks.rslist.dto.TradeDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
@@ -11,6 +13,28 @@ public interface TradeRepository extends CrudRepository<TradeDto, Integer> {
 
     List<TradeDto> findAll();
 
-    @Query("SELECT MAX(t.amount) FROM TradeDto t WHERE t.rank = :rank")
-    Optional<Integer> findCurrentAmountByRank(int rank);
+    List<TradeDto> findAllByKeyword(String keyword);
+
+    @Query("SELECT MAX(t.amount) FROM TradeDto t WHERE t.keyword = :keyword AND t.rank = :rank")
+    Optional<Integer> findCurrentAmountByKeywordAndRank(String keyword, int rank);
+
+    List<TradeDto> findAllByExpiresAtIsNotNull();
+
+    List<TradeDto> findAllByRsEventDtoIdAndExpiresAtIsNotNull(int rsEventId);
+
+    @Query("SELECT t.id FROM TradeDto t WHERE t.keyword = :keyword AND t.rank = :rank AND t.amount <= :amount")
+    List<Integer> findIdsByKeywordAndRankAndAmountLessThanEqual(String keyword, int rank, int amount);
+
+    @Query("SELECT t.id FROM TradeDto t WHERE EXISTS (SELECT w.id FROM TradeDto w WHERE w.keyword = t.keyword "
+            + "AND w.rank = t.rank AND (w.amount > t.amount OR (w.amount = t.amount AND w.id < t.id))) ORDER BY t.id")
+    List<Integer> findSupersededIds(Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM TradeDto t WHERE t.id IN :ids")
+    int bulkDeleteByIds(List<Integer> ids);
+
+    @Modifying
+    @Query("DELETE FROM TradeDto t WHERE t.rsEventDto.id IN "
+            + "(SELECT e.id FROM RsEventDto e WHERE e.user.id = :userId)")
+    int bulkDeleteByRsEventUserId(int userId);
 }
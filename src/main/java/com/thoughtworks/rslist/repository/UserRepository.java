@@ -1,10 +1,28 @@
 package com.thoughtworks.rslist.repository;
 
 import com.thoughtworks.rslist.dto.UserDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
 import java.util.List;
 
 public interface UserRepository extends CrudRepository<UserDto, Integer> {
     List<UserDto> findAll();
+
+    @Query("SELECT u.id FROM UserDto u")
+    List<Integer> findAllIds();
+
+    @Query("SELECT u.id FROM UserDto u WHERE u.id > :afterId ORDER BY u.id")
+    List<Integer> findIdsAfter(int afterId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE UserDto u SET u.voteNum = :budget "
+            + "WHERE u.id > :fromId AND u.id <= :toId AND u.voteNum < :budget")
+    int refillVoteNumBetween(int fromId, int toId, int budget);
+
+    @Modifying
+    @Query("DELETE FROM UserDto u WHERE u.id = :userId")
+    int bulkDeleteById(int userId);
 }
@@ -0,0 +1,26 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.dto.VoteRefillDto;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import java.time.LocalDateTime;
+
+public interface VoteRefillRepository extends CrudRepository<VoteRefillDto, LocalDateTime> {
+
+    @Modifying
+    @Query(value = "INSERT INTO vote_refill (period_start, last_user_id) VALUES (:periodStart, 0)",
+            nativeQuery = true)
+    int insertPeriod(LocalDateTime periodStart);
+
+    @Modifying
+    @Query("UPDATE VoteRefillDto r SET r.lastUserId = :toUserId "
+            + "WHERE r.periodStart = :periodStart AND r.lastUserId = :fromUserId")
+    int advance(LocalDateTime periodStart, int fromUserId, int toUserId);
+
+    @Modifying
+    @Query("UPDATE VoteRefillDto r SET r.completedAt = :completedAt "
+            + "WHERE r.periodStart = :periodStart AND r.completedAt IS NULL")
+    int complete(LocalDateTime periodStart, LocalDateTime completedAt);
+}
@@ -1,12 +1,50 @@
 package com.thoughtworks.rslist.repository;
 
+import com.thoughtworks.rslist.domain.Vote;
 import com.thoughtworks.rslist.dto.VoteDto;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface VoteRepository extends PagingAndSortingRepository<VoteDto, Integer> {
     List<VoteDto> findAll();
     List<VoteDto> findAllByUserIdAndRsEventId(int userId, int rsEventId, Pageable pageable);
+
+    // a projection keeps rows out of the persistence context; with useCursorFetch on
+    // MySQL the fetch size also bounds how many rows the driver holds at once
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT new com.thoughtworks.rslist.domain.Vote(v.user.id, v.rsEvent.id, v.localDateTime, v.num) "
+            + "FROM VoteDto v ORDER BY v.id")
+    Stream<Vote> streamVotes();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT new com.thoughtworks.rslist.domain.Vote(v.user.id, v.rsEvent.id, v.localDateTime, v.num) "
+            + "FROM VoteDto v WHERE v.localDateTime >= :from AND v.localDateTime < :to ORDER BY v.id")
+    Stream<Vote> streamVotes(LocalDateTime from, LocalDateTime to);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT new com.thoughtworks.rslist.domain.Vote(v.user.id, v.rsEvent.id, v.localDateTime, v.num) "
+            + "FROM VoteDto v WHERE v.rsEvent.id = :rsEventId ORDER BY v.id")
+    Stream<Vote> streamVotesByRsEventId(int rsEventId);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT new com.thoughtworks.rslist.domain.Vote(v.user.id, v.rsEvent.id, v.localDateTime, v.num) "
+            + "FROM VoteDto v WHERE v.rsEvent.id = :rsEventId "
+            + "AND v.localDateTime >= :from AND v.localDateTime < :to ORDER BY v.id")
+    Stream<Vote> streamVotesByRsEventId(int rsEventId, LocalDateTime from, LocalDateTime to);
+
+    @Modifying
+    @Query("DELETE FROM VoteDto v WHERE v.user.id = :userId "
+            + "OR v.rsEvent.id IN (SELECT e.id FROM RsEventDto e WHERE e.user.id = :userId)")
+    int bulkDeleteByUserIdOrRsEventUserId(int userId);
 }
@@ -0,0 +1,34 @@
+package com.thoughtworks.rslist.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AdmissionControl {
+
+    private final RateLimiter userRateLimiter;
+    private final RateLimiter ipRateLimiter;
+
+    public AdmissionControl(@Value("${rs.admission.user-permits-per-second}") double userPermitsPerSecond,
+                            @Value("${rs.admission.user-burst}") int userBurst,
+                            @Value("${rs.admission.ip-permits-per-second}") double ipPermitsPerSecond,
+                            @Value("${rs.admission.ip-burst}") int ipBurst) {
+        this.userRateLimiter = new RateLimiter(userPermitsPerSecond, userBurst);
+        this.ipRateLimiter = new RateLimiter(ipPermitsPerSecond, ipBurst);
+    }
+
+    public boolean tryAcquireUser(int userId) {
+        return userRateLimiter.tryAcquire(String.valueOf(userId));
+    }
+
+    public boolean tryAcquireIp(String ip) {
+        return ipRateLimiter.tryAcquire(ip);
+    }
+
+    @Scheduled(fixedDelayString = "${rs.admission.idle-eviction-interval}")
+    public void evictIdleBuckets() {
+        userRateLimiter.evictIdleBuckets();
+        ipRateLimiter.evictIdleBuckets();
+    }
+}
@@ -0,0 +1,105 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.AuditAction;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded multi-producer, single-consumer ring of preallocated audit slots.
+// Producers claim a sequence with a CAS, fill the slot in place and publish it by
+// storing the sequence into the slot's marker; when the consumer lags a full ring
+// behind, the record is dropped and counted rather than making the request wait.
+// The consumer copies contiguous published slots out and only then releases them.
+public class AuditRingBuffer {
+
+    private final int mask;
+    private final Slot[] slots;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public AuditRingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        this.mask = capacity - 1;
+        this.slots = new Slot[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            published.set(i, -1);
+        }
+    }
+
+    public boolean tryPublish(AuditAction action, Integer userId, int rsEventId, int amount,
+                              boolean accepted, String reason, long latencyNanos, long timestamp) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - released.get() > mask) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.action = action;
+        slot.userId = userId;
+        slot.rsEventId = rsEventId;
+        slot.amount = amount;
+        slot.accepted = accepted;
+        slot.reason = reason;
+        slot.latencyNanos = latencyNanos;
+        slot.timestamp = timestamp;
+        published.lazySet((int) (sequence & mask), sequence);
+        return true;
+    }
+
+    // single consumer only; rows come out as audit_log insert parameters
+    public int drainTo(List<Object[]> batch, int maxBatch) {
+        long next = released.get();
+        int count = 0;
+
+        while (count < maxBatch && published.get((int) (next & mask)) == next) {
+            Slot slot = slots[(int) (next & mask)];
+            batch.add(new Object[]{
+                    slot.action.name(),
+                    slot.userId,
+                    slot.rsEventId,
+                    slot.amount,
+                    slot.accepted,
+                    slot.reason,
+                    slot.latencyNanos / 1000,
+                    new Timestamp(slot.timestamp)});
+            slot.reason = null;
+            next++;
+            count++;
+        }
+
+        released.lazySet(next);
+        return count;
+    }
+
+    // claimed but not yet published slots count as pending
+    public boolean isEmpty() {
+        return claimed.get() == released.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private static class Slot {
+        AuditAction action;
+        Integer userId;
+        int rsEventId;
+        int amount;
+        boolean accepted;
+        String reason;
+        long latencyNanos;
+        long timestamp;
+    }
+}
@@ -0,0 +1,50 @@
+package com.thoughtworks.rslist.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// How the audit consumer idles on an empty ring; the trade-off is between the
+// latency until a record is written and the CPU the idle consumer burns.
+public enum AuditWaitStrategy {
+
+    BUSY_SPIN {
+        @Override
+        int idle(int attempt) {
+            return attempt + 1;
+        }
+    },
+
+    YIELD {
+        @Override
+        int idle(int attempt) {
+            Thread.yield();
+            return attempt + 1;
+        }
+    },
+
+    SLEEP {
+        @Override
+        int idle(int attempt) {
+            if (attempt < 100) {
+                return attempt + 1;
+            }
+            if (attempt < 200) {
+                Thread.yield();
+                return attempt + 1;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            return attempt;
+        }
+    },
+
+    // parks until a producer unparks the consumer, see VoteAuditLog.publish
+    BLOCKING {
+        @Override
+        int idle(int attempt) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            return attempt + 1;
+        }
+    };
+
+    abstract int idle(int attempt);
+}
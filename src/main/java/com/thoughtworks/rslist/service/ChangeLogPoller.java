@@ -0,0 +1,129 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.ChangeLogDto;
+import com.thoughtworks.rslist.event.ChangeLogResyncEvent;
+import com.thoughtworks.rslist.event.RsEventChangedEvent;
+import com.thoughtworks.rslist.repository.ChangeLogRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Replays changes written by other nodes as remote RsEventChangedEvents. Ids are
+// allocated before commit, so an id skipped by the cursor may still show up later;
+// such gaps are re-read until they appear or exceed the gap timeout, which has to be
+// longer than the longest write transaction. A gap given up on, or one that could not
+// be tracked beyond MAX_GAPS, is counted in rs.change-log.abandoned-ids and published
+// as a ChangeLogResyncEvent so caches reload what they may have missed.
+@Component
+public class ChangeLogPoller {
+
+    static final int MAX_GAPS = 10000;
+
+    @Autowired
+    ChangeLogRepository changeLogRepository;
+
+    @Autowired
+    ChangeLogService changeLogService;
+
+    @Autowired
+    ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${rs.coherence.batch-size}")
+    int batchSize;
+
+    @Value("${rs.coherence.gap-timeout}")
+    long gapTimeoutMillis;
+
+    private long lastSeenId = -1;
+    private final Map<Long, Long> gapFirstSeenNanos = new HashMap<>();
+    private volatile long caughtUpAtNanos;
+    private volatile boolean caughtUp;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void start() {
+        lastSeenId = changeLogRepository.findMaxId().orElse(0L);
+    }
+
+    @Scheduled(fixedDelayString = "${rs.coherence.poll-interval}")
+    public synchronized void poll() {
+        if (lastSeenId < 0) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long abandoned = 0;
+        if (!gapFirstSeenNanos.isEmpty()) {
+            changeLogRepository.findAllByIdIn(gapFirstSeenNanos.keySet()).forEach(change -> {
+                gapFirstSeenNanos.remove(change.getId());
+                apply(change);
+            });
+            for (Iterator<Long> iterator = gapFirstSeenNanos.values().iterator(); iterator.hasNext(); ) {
+                if (now - iterator.next() > TimeUnit.MILLISECONDS.toNanos(gapTimeoutMillis)) {
+                    iterator.remove();
+                    abandoned++;
+                }
+            }
+        }
+
+        List<ChangeLogDto> changes =
+                changeLogRepository.findAllByIdGreaterThanOrderByIdAsc(lastSeenId, PageRequest.of(0, batchSize));
+        for (ChangeLogDto change : changes) {
+            long gap = change.getId() - lastSeenId - 1;
+            long tracked = Math.min(gap, MAX_GAPS - gapFirstSeenNanos.size());
+            for (long id = lastSeenId + 1; id <= lastSeenId + tracked; id++) {
+                gapFirstSeenNanos.put(id, now);
+            }
+            abandoned += gap - tracked;
+            lastSeenId = change.getId();
+            apply(change);
+        }
+
+        if (abandoned > 0) {
+            meterRegistry.counter("rs.change-log.abandoned-ids").increment(abandoned);
+            applicationEventPublisher.publishEvent(new ChangeLogResyncEvent(abandoned));
+        }
+
+        if (gapFirstSeenNanos.isEmpty() && changes.size() < batchSize) {
+            caughtUpAtNanos = now;
+            caughtUp = true;
+        }
+    }
+
+    // whether a poll that started at or after the given time left no change unread and
+    // no gap open, so every change committed before that time has been applied
+    public boolean caughtUpSince(long nanos) {
+        return caughtUp && caughtUpAtNanos - nanos >= 0;
+    }
+
+    private void apply(ChangeLogDto change) {
+        if (changeLogService.getNodeId().equals(change.getNodeId())) {
+            return;
+        }
+        applicationEventPublisher.publishEvent(RsEventChangedEvent.builder()
+                .type(change.getType())
+                .rsEventId(change.getRsEventId())
+                .userId(change.getUserId() == null ? 0 : change.getUserId())
+                .amount(change.getAmount())
+                .time(change.getOccurredAt())
+                .remote(true)
+                .build());
+    }
+}
@@ -0,0 +1,96 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.ChangeType;
+import com.thoughtworks.rslist.dto.ChangeLogDto;
+import com.thoughtworks.rslist.event.RsEventChangedEvent;
+import com.thoughtworks.rslist.repository.ChangeLogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+// Every ranking-relevant write appends to change_log inside its own transaction, which
+// is what lets peers that only share the database catch up with it.
+@Service
+public class ChangeLogService {
+
+    final ChangeLogRepository changeLogRepository;
+    final ApplicationEventPublisher applicationEventPublisher;
+    final Duration retention;
+    final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    public ChangeLogService(ChangeLogRepository changeLogRepository,
+                            ApplicationEventPublisher applicationEventPublisher,
+                            @Value("${rs.coherence.retention}") Duration retention) {
+        this.changeLogRepository = changeLogRepository;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.retention = retention;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void record(ChangeType type, int rsEventId, int amount, LocalDateTime occurredAt) {
+        LocalDateTime now = LocalDateTime.now();
+        changeLogRepository.save(ChangeLogDto.builder()
+                .nodeId(nodeId)
+                .type(type)
+                .rsEventId(rsEventId)
+                .amount(amount)
+                .occurredAt(occurredAt == null ? now : occurredAt)
+                .createdAt(now)
+                .build());
+        applicationEventPublisher.publishEvent(RsEventChangedEvent.builder()
+                .type(type)
+                .rsEventId(rsEventId)
+                .amount(amount)
+                .time(occurredAt == null ? now : occurredAt)
+                .remote(false)
+                .build());
+    }
+
+    public void recordUserRegistered(int userId) {
+        LocalDateTime now = LocalDateTime.now();
+        changeLogRepository.save(ChangeLogDto.builder()
+                .nodeId(nodeId)
+                .type(ChangeType.REGISTER)
+                .rsEventId(0)
+                .userId(userId)
+                .amount(0)
+                .occurredAt(now)
+                .createdAt(now)
+                .build());
+        applicationEventPublisher.publishEvent(RsEventChangedEvent.builder()
+                .type(ChangeType.REGISTER)
+                .userId(userId)
+                .time(now)
+                .remote(false)
+                .build());
+    }
+
+    public void recordRsEventsDeletedByUser(int userId, List<Integer> rsEventIds) {
+        LocalDateTime now = LocalDateTime.now();
+        changeLogRepository.recordDeletedRsEventsOfUser(nodeId, userId, now);
+        rsEventIds.forEach(rsEventId -> applicationEventPublisher.publishEvent(RsEventChangedEvent.builder()
+                .type(ChangeType.DELETE)
+                .rsEventId(rsEventId)
+                .time(now)
+                .remote(false)
+                .build()));
+    }
+
+    @Scheduled(fixedDelayString = "${rs.coherence.retention-check-interval}")
+    @Transactional
+    public void pruneChangeLog() {
+        changeLogRepository.bulkDeleteByCreatedAtBefore(LocalDateTime.now().minus(retention));
+    }
+}
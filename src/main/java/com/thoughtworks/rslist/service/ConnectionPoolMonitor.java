@@ -0,0 +1,188 @@
+package com.thoughtworks.rslist.service;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Instruments the JDBC pool. Hikari's Micrometer metrics (acquire wait, usage, active,
+// idle and pending connections) are kept as they are; on top of them every borrowed
+// connection is attributed to the application method that borrowed it, so hold times
+// are broken down per method as rs.connection.hold and a connection held past the leak
+// threshold is counted against its method as rs.connection.leaks while it is still held.
+// Attribution walks the stack once per borrow and assumes a connection is returned on
+// the thread that borrowed it; track-holders turns it off.
+@Component
+public class ConnectionPoolMonitor {
+
+    static final String APPLICATION_PACKAGE = "com.thoughtworks.rslist.";
+    static final String UNKNOWN_HOLDER = "unknown";
+
+    final MeterRegistry meterRegistry;
+    final boolean trackHolders;
+    final long leakThresholdNanos;
+    final ThreadLocal<Deque<Hold>> threadHolds = ThreadLocal.withInitial(ArrayDeque::new);
+    final Set<Hold> holds = ConcurrentHashMap.newKeySet();
+    final AtomicInteger active = new AtomicInteger();
+    final AtomicInteger peakActive = new AtomicInteger();
+    final AtomicLong acquired = new AtomicLong();
+    final AtomicLong acquireNanos = new AtomicLong();
+    final AtomicLong released = new AtomicLong();
+    final AtomicLong usageMillis = new AtomicLong();
+    final AtomicLong timeouts = new AtomicLong();
+
+    @Autowired
+    public ConnectionPoolMonitor(MeterRegistry meterRegistry,
+                                 @Value("${rs.connection-pool.track-holders}") boolean trackHolders,
+                                 @Value("${spring.datasource.hikari.leak-detection-threshold:0}") long leakThresholdMillis) {
+        this.meterRegistry = meterRegistry;
+        this.trackHolders = trackHolders;
+        this.leakThresholdNanos = TimeUnit.MILLISECONDS.toNanos(leakThresholdMillis);
+    }
+
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        IMetricsTracker delegate = new MicrometerMetricsTrackerFactory(meterRegistry).create(poolName, poolStats);
+
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                delegate.recordConnectionCreatedMillis(connectionCreatedMillis);
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                delegate.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+                acquired(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                delegate.recordConnectionUsageMillis(elapsedBorrowedMillis);
+                released(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                delegate.recordConnectionTimeout();
+                timeouts.incrementAndGet();
+            }
+
+            @Override
+            public void close() {
+                delegate.close();
+            }
+        };
+    }
+
+    void acquired(long elapsedAcquiredNanos) {
+        acquired.incrementAndGet();
+        acquireNanos.addAndGet(elapsedAcquiredNanos);
+        peakActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+
+        if (trackHolders) {
+            Hold hold = new Hold(findHolder(), System.nanoTime());
+            threadHolds.get().push(hold);
+            holds.add(hold);
+        }
+    }
+
+    void released(long elapsedBorrowedMillis) {
+        released.incrementAndGet();
+        usageMillis.addAndGet(elapsedBorrowedMillis);
+        active.decrementAndGet();
+
+        if (trackHolders) {
+            Hold hold = threadHolds.get().poll();
+            if (hold != null) {
+                holds.remove(hold);
+                meterRegistry.timer("rs.connection.hold", "method", hold.method)
+                        .record(System.nanoTime() - hold.acquiredAt, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rs.connection-pool.leak-check-interval}")
+    public void checkLeaks() {
+        checkLeaks(System.nanoTime());
+    }
+
+    // each held connection is counted once, however long it stays leaked
+    void checkLeaks(long now) {
+        if (leakThresholdNanos <= 0) {
+            return;
+        }
+        for (Hold hold : holds) {
+            if (!hold.reported && now - hold.acquiredAt >= leakThresholdNanos) {
+                hold.reported = true;
+                meterRegistry.counter("rs.connection.leaks", "method", hold.method).increment();
+            }
+        }
+    }
+
+    // what the pool did since the previous call
+    Window drainWindow() {
+        return new Window(acquired.getAndSet(0), acquireNanos.getAndSet(0), released.getAndSet(0),
+                usageMillis.getAndSet(0), timeouts.getAndSet(0), peakActive.getAndSet(active.get()));
+    }
+
+    // the innermost application frame; Spring proxies are named after the class they proxy
+    // and lambdas after the method they are written in
+    private String findHolder() {
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            String className = frame.getClassName();
+            if (!className.startsWith(APPLICATION_PACKAGE) || className.startsWith(ConnectionPoolMonitor.class.getName())) {
+                continue;
+            }
+            int proxy = className.indexOf("$$");
+            String simpleName = className.substring(className.lastIndexOf('.') + 1,
+                    proxy < 0 ? className.length() : proxy);
+            String methodName = frame.getMethodName();
+            if (methodName.startsWith("lambda$")) {
+                methodName = methodName.substring("lambda$".length(), methodName.lastIndexOf('$'));
+            }
+            return simpleName + "." + methodName;
+        }
+        return UNKNOWN_HOLDER;
+    }
+
+    static class Hold {
+        final String method;
+        final long acquiredAt;
+        volatile boolean reported;
+
+        Hold(String method, long acquiredAt) {
+            this.method = method;
+            this.acquiredAt = acquiredAt;
+        }
+    }
+
+    static class Window {
+        final long acquired;
+        final long acquireNanos;
+        final long released;
+        final long usageMillis;
+        final long timeouts;
+        final int peakActive;
+
+        Window(long acquired, long acquireNanos, long released, long usageMillis, long timeouts, int peakActive) {
+            this.acquired = acquired;
+            this.acquireNanos = acquireNanos;
+            this.released = released;
+            this.usageMillis = usageMillis;
+            this.timeouts = timeouts;
+            this.peakActive = peakActive;
+        }
+    }
+}
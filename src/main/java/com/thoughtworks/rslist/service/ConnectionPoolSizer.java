@@ -0,0 +1,96 @@
+package com.thoughtworks.rslist.service;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+// Resizes the JDBC pool between min-size and max-size, one step per interval. When
+// borrowers waited longer than target-wait on average the pool grows by one connection,
+// unless connections were also held more than hold-tolerance longer than usual: then the
+// database is the bottleneck, extra connections would only queue inside it, and the pool
+// shrinks by a quarter instead. A pool that kept two or more connections unused shrinks
+// by one. The write executor is resized along with the pool.
+@Service
+public class ConnectionPoolSizer {
+
+    // how fast the usual hold time may creep up, per interval, after the database slows
+    // down for good
+    static final double BASELINE_DRIFT = 1.05;
+
+    final HikariConfigMXBean poolConfig;
+    final ConnectionPoolMonitor connectionPoolMonitor;
+    final WriteExecutor writeExecutor;
+    final boolean enabled;
+    final int minSize;
+    final int maxSize;
+    final long targetWaitNanos;
+    final double holdTolerance;
+    double baselineHoldMillis = -1;
+
+    @Autowired
+    public ConnectionPoolSizer(HikariDataSource dataSource,
+                               ConnectionPoolMonitor connectionPoolMonitor,
+                               WriteExecutor writeExecutor,
+                               @Value("${rs.connection-pool.adaptive.enabled}") boolean enabled,
+                               @Value("${rs.connection-pool.adaptive.min-size}") int minSize,
+                               @Value("${rs.connection-pool.adaptive.max-size}") int maxSize,
+                               @Value("${rs.connection-pool.adaptive.target-wait}") long targetWaitMillis,
+                               @Value("${rs.connection-pool.adaptive.hold-tolerance}") double holdTolerance) {
+        if (minSize < 1 || maxSize < minSize) {
+            throw new IllegalArgumentException("pool size bounds must satisfy 1 <= min-size <= max-size");
+        }
+        this.poolConfig = dataSource.getHikariConfigMXBean();
+        this.connectionPoolMonitor = connectionPoolMonitor;
+        this.writeExecutor = writeExecutor;
+        this.enabled = enabled;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetWaitNanos = TimeUnit.MILLISECONDS.toNanos(targetWaitMillis);
+        this.holdTolerance = holdTolerance;
+    }
+
+    @Scheduled(fixedDelayString = "${rs.connection-pool.adaptive.interval}")
+    public void adjust() {
+        if (enabled) {
+            adjust(connectionPoolMonitor.drainWindow());
+        }
+    }
+
+    // returns the new maximum pool size
+    int adjust(ConnectionPoolMonitor.Window window) {
+        int size = poolConfig.getMaximumPoolSize();
+        if (window.acquired == 0 || window.released == 0) {
+            return size;
+        }
+
+        // holds are measured in whole milliseconds, so anything under one counts as one
+        double holdMillis = (double) window.usageMillis / window.released;
+        boolean databaseSlow = baselineHoldMillis >= 0
+                && holdMillis > Math.max(baselineHoldMillis, 1) * (1 + holdTolerance);
+        baselineHoldMillis = baselineHoldMillis < 0
+                ? holdMillis
+                : Math.min(holdMillis, baselineHoldMillis * BASELINE_DRIFT);
+        boolean waiting = window.timeouts > 0 || window.acquireNanos / window.acquired > targetWaitNanos;
+
+        int next = size;
+        if (waiting && databaseSlow) {
+            next = size - Math.max(1, size / 4);
+        } else if (waiting) {
+            next = size + 1;
+        } else if (window.peakActive < size - 1) {
+            next = size - 1;
+        }
+        next = Math.max(minSize, Math.min(maxSize, next));
+
+        if (next != size) {
+            poolConfig.setMaximumPoolSize(next);
+            writeExecutor.resize(next);
+        }
+        return next;
+    }
+}
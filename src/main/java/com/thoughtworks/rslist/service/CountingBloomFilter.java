@@ -0,0 +1,103 @@
+package com.thoughtworks.rslist.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bloom filter over int ids with 4-bit counters, so ids can be removed again. All
+// operations are lock-free. A counter that reaches 15 sticks there, which can only
+// leave an id looking present; mightContain never answers false for an id that
+// was added and not removed.
+public class CountingBloomFilter {
+
+    private static final int COUNTERS_PER_WORD = 16;
+    private static final long COUNTER_MASK = 0xFL;
+    private static final long SATURATED = 0xFL;
+
+    private final AtomicLongArray words;
+    private final long counters;
+    private final int hashFunctions;
+
+    // the counter count follows from the expected size and false positive rate and
+    // is then capped by the memory budget, which raises the effective rate instead
+    public CountingBloomFilter(long expectedInsertions, double falsePositiveRate, long memoryBudgetBytes) {
+        long wanted = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long affordable = memoryBudgetBytes * 8 / 4;
+        this.counters = Math.max(COUNTERS_PER_WORD, Math.min(wanted, affordable));
+        this.hashFunctions = Math.max(1, (int) Math.round((double) counters / expectedInsertions * Math.log(2)));
+        this.words = new AtomicLongArray((int) ((counters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD));
+    }
+
+    public void add(int id) {
+        long hash = mix(id);
+        for (int i = 0; i < hashFunctions; i++) {
+            increment(index(hash, i));
+        }
+    }
+
+    public void remove(int id) {
+        if (!mightContain(id)) {
+            return;
+        }
+        long hash = mix(id);
+        for (int i = 0; i < hashFunctions; i++) {
+            decrement(index(hash, i));
+        }
+    }
+
+    public boolean mightContain(int id) {
+        long hash = mix(id);
+        for (int i = 0; i < hashFunctions; i++) {
+            if (counter(index(hash, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getMemoryBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    private void increment(long index) {
+        int word = (int) (index / COUNTERS_PER_WORD);
+        int shift = (int) (index % COUNTERS_PER_WORD) * 4;
+        while (true) {
+            long current = words.get(word);
+            long counter = (current >>> shift) & COUNTER_MASK;
+            if (counter == SATURATED || words.compareAndSet(word, current, current + (1L << shift))) {
+                return;
+            }
+        }
+    }
+
+    private void decrement(long index) {
+        int word = (int) (index / COUNTERS_PER_WORD);
+        int shift = (int) (index % COUNTERS_PER_WORD) * 4;
+        while (true) {
+            long current = words.get(word);
+            long counter = (current >>> shift) & COUNTER_MASK;
+            if (counter == 0 || counter == SATURATED
+                    || words.compareAndSet(word, current, current - (1L << shift))) {
+                return;
+            }
+        }
+    }
+
+    private long counter(long index) {
+        long word = words.get((int) (index / COUNTERS_PER_WORD));
+        return (word >>> ((int) (index % COUNTERS_PER_WORD) * 4)) & COUNTER_MASK;
+    }
+
+    // double hashing over the two halves of one 64-bit mix
+    private long index(long hash, int i) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        return Math.floorMod(h1 + (long) i * h2, counters);
+    }
+
+    private static long mix(int id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,182 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.ChangeType;
+import com.thoughtworks.rslist.event.ChangeLogResyncEvent;
+import com.thoughtworks.rslist.event.RsEventAddedEvent;
+import com.thoughtworks.rslist.event.RsEventChangedEvent;
+import com.thoughtworks.rslist.event.UserAddedEvent;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Tracks which user and rs event ids exist. Ids are added as soon as they are
+// persisted, before commit, and removed only after a delete has committed. Ids
+// created on other nodes only arrive once the change log poller replays them, so a
+// miss is trusted as absence only up to trustedThroughId: user and rs event ids come
+// from one sequence, so every id at or below the highest one learned by some time t
+// was allocated before t, its transaction has ended a gap timeout later, and a poll
+// that caught up after that has replayed it. Higher ids, and any id while a resync
+// reloads the filter, are looked up and handed back through confirm*.
+// Until the startup load is done every id passes.
+@Component
+public class IdExistenceFilter {
+
+    static final int MAX_CHECKPOINTS = 1000;
+
+    final UserRepository userRepository;
+    final RsEventRepository rsEventRepository;
+    final ChangeLogPoller changeLogPoller;
+    final CountingBloomFilter userIds;
+    final CountingBloomFilter rsEventIds;
+    final long gapTimeoutNanos;
+
+    private volatile boolean loaded;
+    private volatile boolean resyncing;
+    private volatile long trustedThroughId = -1;
+    private final AtomicLong highestLearnedId = new AtomicLong(-1);
+
+    // {takenAtNanos, highestLearnedId}, oldest first
+    private final Deque<long[]> checkpoints = new ArrayDeque<>();
+
+    @Autowired
+    public IdExistenceFilter(UserRepository userRepository,
+                             RsEventRepository rsEventRepository,
+                             ChangeLogPoller changeLogPoller,
+                             @Value("${rs.existence-filter.expected-ids}") long expectedIds,
+                             @Value("${rs.existence-filter.false-positive-rate}") double falsePositiveRate,
+                             @Value("${rs.existence-filter.memory-budget}") long memoryBudgetBytes,
+                             @Value("${rs.coherence.gap-timeout}") long gapTimeoutMillis) {
+        this.userRepository = userRepository;
+        this.rsEventRepository = rsEventRepository;
+        this.changeLogPoller = changeLogPoller;
+        this.userIds = new CountingBloomFilter(expectedIds, falsePositiveRate, memoryBudgetBytes / 2);
+        this.rsEventIds = new CountingBloomFilter(expectedIds, falsePositiveRate, memoryBudgetBytes / 2);
+        this.gapTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(gapTimeoutMillis);
+    }
+
+    // ids persisted while this runs are added by the listeners as well; counting
+    // one of them twice only makes it outlive its delete as a false positive
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void load() {
+        userRepository.findAllIds().forEach(userId -> {
+            userIds.add(userId);
+            learn(userId);
+        });
+        rsEventRepository.findAllIds().forEach(rsEventId -> {
+            rsEventIds.add(rsEventId);
+            learn(rsEventId);
+        });
+        loaded = true;
+    }
+
+    public boolean mightContainUser(int userId) {
+        return !loaded || userIds.mightContain(userId);
+    }
+
+    public boolean mightContainRsEvent(int rsEventId) {
+        return !loaded || rsEventIds.mightContain(rsEventId);
+    }
+
+    // whether a miss for this id means it does not exist
+    public boolean trustsMiss(int id) {
+        return loaded && !resyncing && id <= trustedThroughId;
+    }
+
+    // for an id the database has just returned; a concurrent confirm of the same
+    // id counts it twice, which only makes it outlive its delete as a false positive
+    public void confirmUser(int userId) {
+        if (!userIds.mightContain(userId)) {
+            userIds.add(userId);
+        }
+    }
+
+    public void confirmRsEvent(int rsEventId) {
+        if (!rsEventIds.mightContain(rsEventId)) {
+            rsEventIds.add(rsEventId);
+        }
+    }
+
+    // a checkpoint left waiting past MAX_CHECKPOINTS is merged into the newest one,
+    // which only makes its ids wait longer
+    @Scheduled(fixedDelayString = "${rs.coherence.poll-interval}")
+    public synchronized void checkpoint() {
+        if (!loaded) {
+            return;
+        }
+
+        long highest = highestLearnedId.get();
+        if (checkpoints.isEmpty() || checkpoints.peekLast()[1] != highest) {
+            if (checkpoints.size() == MAX_CHECKPOINTS) {
+                checkpoints.pollLast();
+            }
+            checkpoints.addLast(new long[]{System.nanoTime(), highest});
+        }
+
+        while (!checkpoints.isEmpty() && changeLogPoller.caughtUpSince(checkpoints.peekFirst()[0] + gapTimeoutNanos)) {
+            trustedThroughId = checkpoints.pollFirst()[1];
+        }
+    }
+
+    @EventListener
+    public void onUserAdded(UserAddedEvent event) {
+        userIds.add(event.getUserDto().getId());
+        learn(event.getUserDto().getId());
+    }
+
+    @EventListener
+    public void onRsEventAdded(RsEventAddedEvent event) {
+        rsEventIds.add(event.getRsEventDto().getId());
+        learn(event.getRsEventDto().getId());
+    }
+
+    // removing an id the load has not counted yet could clear a counter another id
+    // relies on, so deletes are ignored until the load is done
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRsEventChanged(RsEventChangedEvent event) {
+        if (event.getType() == ChangeType.DELETE) {
+            if (loaded) {
+                rsEventIds.remove(event.getRsEventId());
+            }
+        } else if (event.isRemote() && event.getType() == ChangeType.ADD) {
+            rsEventIds.add(event.getRsEventId());
+            learn(event.getRsEventId());
+        } else if (event.isRemote() && event.getType() == ChangeType.REGISTER) {
+            userIds.add(event.getUserId());
+            learn(event.getUserId());
+        }
+    }
+
+    // an abandoned gap may have hidden ids below the trusted mark, so misses go to the
+    // database until every committed id has been confirmed again
+    @EventListener
+    public void onChangeLogResync(ChangeLogResyncEvent event) {
+        if (!loaded) {
+            return;
+        }
+        resyncing = true;
+        try {
+            userRepository.findAllIds().forEach(this::confirmUser);
+            rsEventRepository.findAllIds().forEach(this::confirmRsEvent);
+        } finally {
+            resyncing = false;
+        }
+    }
+
+    private void learn(int id) {
+        highestLearnedId.accumulateAndGet(id, Math::max);
+    }
+}
@@ -0,0 +1,144 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.ChangeType;
+import com.thoughtworks.rslist.dto.TradeDto;
+import com.thoughtworks.rslist.event.ChangeLogResyncEvent;
+import com.thoughtworks.rslist.event.RsEventChangedEvent;
+import com.thoughtworks.rslist.repository.TradeArchiveRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class PaidRankExpiryService {
+
+    final TradeRepository tradeRepository;
+    final TradeArchiveRepository tradeArchiveRepository;
+    final ChangeLogService changeLogService;
+    final TransactionTemplate transactionTemplate;
+    final long tickMillis;
+    final TimerWheel<Integer> timerWheel;
+    final Set<Integer> scheduledTradeIds = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService executor;
+
+    @Autowired
+    public PaidRankExpiryService(TradeRepository tradeRepository,
+                                 TradeArchiveRepository tradeArchiveRepository,
+                                 ChangeLogService changeLogService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${rs.trade.expiry-tick}") long tickMillis,
+                                 @Value("${rs.trade.expiry-wheel-size}") int wheelSize) {
+        this.tradeRepository = tradeRepository;
+        this.tradeArchiveRepository = tradeArchiveRepository;
+        this.changeLogService = changeLogService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tickMillis = tickMillis;
+        this.timerWheel = new TimerWheel<>(TimeUnit.MILLISECONDS.toNanos(tickMillis), wheelSize, System.nanoTime());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void start() {
+        tradeRepository.findAllByExpiresAtIsNotNull().forEach(this::schedule);
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "paid-rank-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    // scheduling is idempotent, so every expiring trade can simply be offered again
+    @EventListener
+    public void onChangeLogResync(ChangeLogResyncEvent event) {
+        tradeRepository.findAllByExpiresAtIsNotNull().forEach(this::schedule);
+    }
+
+    // buys made on other nodes are scheduled here as well; whichever node fires first
+    // releases the rank and the others find nothing left to do
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRsEventChanged(RsEventChangedEvent event) {
+        if (event.getType() == ChangeType.BUY) {
+            tradeRepository.findAllByRsEventDtoIdAndExpiresAtIsNotNull(event.getRsEventId()).forEach(this::schedule);
+        }
+    }
+
+    public int getPendingExpirations() {
+        return timerWheel.size();
+    }
+
+    void schedule(TradeDto tradeDto) {
+        if (tradeDto.getExpiresAt() == null || !scheduledTradeIds.add(tradeDto.getId())) {
+            return;
+        }
+        long delayNanos = Math.max(Duration.between(LocalDateTime.now(), tradeDto.getExpiresAt()).toNanos(), 0);
+        timerWheel.schedule(tradeDto.getId(), System.nanoTime() + delayNanos);
+    }
+
+    void tick() {
+        timerWheel.advance(System.nanoTime(), this::expire);
+    }
+
+    void expire(int tradeId) {
+        scheduledTradeIds.remove(tradeId);
+        try {
+            transactionTemplate.execute(status -> {
+                tradeRepository.findById(tradeId).ifPresent(this::releaseIfWinning);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            if (scheduledTradeIds.add(tradeId)) {
+                timerWheel.schedule(tradeId, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(tickMillis));
+            }
+        }
+    }
+
+    private void releaseIfWinning(TradeDto tradeDto) {
+        LocalDateTime now = LocalDateTime.now();
+        if (tradeDto.getExpiresAt().isAfter(now)) {
+            scheduledTradeIds.remove(tradeDto.getId());
+            schedule(tradeDto);
+            return;
+        }
+
+        Optional<Integer> currentAmount = tradeRepository.findCurrentAmountByKeywordAndRank(
+                tradeDto.getKeyword(), tradeDto.getRank());
+        if (!currentAmount.isPresent() || currentAmount.get() > tradeDto.getAmount()) {
+            return;
+        }
+
+        // a higher bid placed meanwhile is kept, it holds the rank on its own terms
+        List<Integer> ids = tradeRepository.findIdsByKeywordAndRankAndAmountLessThanEqual(
+                tradeDto.getKeyword(), tradeDto.getRank(), tradeDto.getAmount());
+        tradeArchiveRepository.archiveTradesByIds(ids, now);
+        tradeRepository.bulkDeleteByIds(ids);
+        changeLogService.record(ChangeType.EXPIRE, tradeDto.getRsEventDto().getId(), tradeDto.getAmount(), now);
+    }
+}
@@ -0,0 +1,44 @@
+package com.thoughtworks.rslist.service;
+
+import java.util.Arrays;
+import java.util.Map;
+
+// Paid ranks and the rs events holding them, as parallel int arrays sorted by rank
+// so that the ranking merge can walk them in step with the organic order.
+public final class PaidSlots {
+
+    public static final PaidSlots NONE = new PaidSlots(new long[0], 0);
+
+    final int[] ranks;
+    final int[] rsEventIds;
+    final int size;
+
+    // each slot is pack(rank, rsEventId); ranks must be unique
+    public PaidSlots(long[] slots, int size) {
+        Arrays.sort(slots, 0, size);
+        this.ranks = new int[size];
+        this.rsEventIds = new int[size];
+        this.size = size;
+        for (int i = 0; i < size; i++) {
+            ranks[i] = (int) (slots[i] >>> 32);
+            rsEventIds[i] = (int) slots[i];
+        }
+    }
+
+    public static long pack(int rank, int rsEventId) {
+        return ((long) rank << 32) | (rsEventId & 0xFFFFFFFFL);
+    }
+
+    public static PaidSlots of(Map<Integer, Integer> rankRsEventIdMap) {
+        long[] slots = new long[rankRsEventIdMap.size()];
+        int size = 0;
+        for (Map.Entry<Integer, Integer> entry : rankRsEventIdMap.entrySet()) {
+            slots[size++] = pack(entry.getKey(), entry.getValue());
+        }
+        return new PaidSlots(slots, size);
+    }
+
+    public int size() {
+        return size;
+    }
+}
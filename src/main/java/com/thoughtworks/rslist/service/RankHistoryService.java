@@ -0,0 +1,70 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RankPoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class RankHistoryService {
+
+    final RsService rsService;
+    final RankHistoryStore rankHistoryStore;
+    final Duration retention;
+    final Duration downsampleAfter;
+    final Duration downsampleInterval;
+
+    @Autowired
+    public RankHistoryService(RsService rsService,
+                              @Value("${rs.history.directory}") String directory,
+                              @Value("${rs.history.segment-duration}") Duration segmentDuration,
+                              @Value("${rs.history.retention}") Duration retention,
+                              @Value("${rs.history.downsample-after}") Duration downsampleAfter,
+                              @Value("${rs.history.downsample-interval}") Duration downsampleInterval)
+            throws IOException {
+        this.rsService = rsService;
+        this.rankHistoryStore = new RankHistoryStore(Paths.get(directory), segmentDuration);
+        this.retention = retention;
+        this.downsampleAfter = downsampleAfter;
+        this.downsampleInterval = downsampleInterval;
+    }
+
+    @Scheduled(fixedDelayString = "${rs.history.capture-interval}",
+            initialDelayString = "${rs.history.capture-interval}")
+    public void capture() throws IOException {
+        rankHistoryStore.append(System.currentTimeMillis(), rsService.getAllRsEvents());
+    }
+
+    @Scheduled(fixedDelayString = "${rs.history.maintenance-interval}")
+    public void maintain() throws IOException {
+        rankHistoryStore.maintain(System.currentTimeMillis(), retention, downsampleAfter, downsampleInterval);
+    }
+
+    public List<RankPoint> getHistory(int rsEventId, LocalDateTime from, LocalDateTime to) {
+        ZoneId zone = ZoneId.systemDefault();
+        try {
+            return rankHistoryStore.history(rsEventId,
+                    from.atZone(zone).toInstant().toEpochMilli(),
+                    to.atZone(zone).toInstant().toEpochMilli())
+                    .stream()
+                    .map(point -> new RankPoint(
+                            LocalDateTime.ofInstant(Instant.ofEpochMilli(point[0]), zone),
+                            (int) point[1],
+                            (int) point[2]))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
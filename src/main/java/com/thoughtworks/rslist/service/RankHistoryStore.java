@@ -0,0 +1,146 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Ranking snapshots appended to one file per time segment, named after the
+// segment start. Each record is length prefixed and records are in time order,
+// so a history query maps only the segments overlapping its range and stops at
+// the first record past its end. Old segments are downsampled in place by
+// rewriting them to a temporary file and moving it over the original.
+public class RankHistoryStore {
+
+    private static final String PREFIX = "rank-";
+    private static final String SUFFIX = ".seg";
+
+    private final Path directory;
+    private final long segmentMillis;
+
+    public RankHistoryStore(Path directory, Duration segmentDuration) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentMillis = segmentDuration.toMillis();
+    }
+
+    public synchronized void append(long timestamp, List<RsEvent> ranking) throws IOException {
+        byte[] record = RankSnapshotCodec.encode(timestamp, ranking);
+        ByteBuffer framed = ByteBuffer.allocate(4 + record.length);
+        framed.putInt(record.length).put(record).flip();
+
+        Path segment = directory.resolve(PREFIX + (timestamp - Math.floorMod(timestamp, segmentMillis)) + SUFFIX);
+        try (FileChannel channel = FileChannel.open(segment,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (framed.hasRemaining()) {
+                channel.write(framed);
+            }
+        }
+    }
+
+    // returns {timestamp, rank, voteNum} per snapshot containing the event
+    public List<long[]> history(int rsEventId, long from, long to) throws IOException {
+        List<long[]> points = new ArrayList<>();
+
+        for (Path segment : listSegments().subMap(from - segmentMillis, false, to, true).values()) {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+
+            int position = 0;
+            while (position + 4 <= buffer.limit()) {
+                int length = buffer.getInt(position);
+                int record = position + 4;
+                // a record still being appended is not visible yet
+                if (length <= 0 || record + length > buffer.limit()) {
+                    break;
+                }
+                long timestamp = RankSnapshotCodec.timestamp(buffer, record);
+                if (timestamp > to) {
+                    break;
+                }
+                if (timestamp >= from) {
+                    int[] point = RankSnapshotCodec.find(buffer, record, rsEventId);
+                    if (point != null) {
+                        points.add(new long[]{timestamp, point[0], point[1]});
+                    }
+                }
+                position = record + length;
+            }
+        }
+
+        return points;
+    }
+
+    // drops segments past retention and keeps one snapshot per downsample interval
+    // in segments older than downsampleAfter
+    public synchronized void maintain(long now, Duration retention, Duration downsampleAfter,
+                                      Duration downsampleInterval) throws IOException {
+        for (Map.Entry<Long, Path> entry : listSegments().entrySet()) {
+            long segmentEnd = entry.getKey() + segmentMillis;
+            if (segmentEnd <= now - retention.toMillis()) {
+                Files.deleteIfExists(entry.getValue());
+            } else if (segmentEnd <= now - downsampleAfter.toMillis()) {
+                downsample(entry.getValue(), downsampleInterval.toMillis());
+            }
+        }
+    }
+
+    private void downsample(Path segment, long intervalMillis) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        ByteBuffer kept = ByteBuffer.allocate(buffer.limit());
+        long lastBucket = Long.MIN_VALUE;
+        boolean dropped = false;
+
+        int position = 0;
+        while (position + 4 <= buffer.limit()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + 4 + length > buffer.limit()) {
+                break;
+            }
+            long bucket = Math.floorDiv(RankSnapshotCodec.timestamp(buffer, position + 4), intervalMillis);
+            if (bucket != lastBucket) {
+                kept.put(buffer.array(), position, 4 + length);
+                lastBucket = bucket;
+            } else {
+                dropped = true;
+            }
+            position += 4 + length;
+        }
+
+        if (!dropped) {
+            return;
+        }
+
+        Path temporary = segment.resolveSibling(segment.getFileName() + ".tmp");
+        Files.write(temporary, Arrays.copyOf(kept.array(), kept.position()));
+        Files.move(temporary, segment, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private TreeMap<Long, Path> listSegments() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                segments.put(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())), path);
+            }
+        }
+        return segments;
+    }
+}
@@ -0,0 +1,136 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+// One ranking snapshot as three varint columns in rs event id order: ids are delta
+// encoded, ranks and vote counts are zigzag encoded as they are. The header keeps
+// the byte length of the first two columns so a lookup can jump straight to the
+// matching position in the others.
+//
+// magic int | timestamp long | count int | id bytes int | rank bytes int | ids | ranks | vote nums
+public final class RankSnapshotCodec {
+
+    static final int MAGIC = 0x52534e31;
+    static final int HEADER_BYTES = 4 + 8 + 4 + 4 + 4;
+
+    private RankSnapshotCodec() {
+    }
+
+    // an event holding several paid ranks is stored with its best one
+    public static byte[] encode(long timestamp, List<RsEvent> ranking) {
+        long[] byId = new long[ranking.size()];
+        for (int i = 0; i < ranking.size(); i++) {
+            byId[i] = ((long) ranking.get(i).getId() << 32) | i;
+        }
+        Arrays.sort(byId);
+
+        int count = 0;
+        int[] ids = new int[byId.length];
+        int[] positions = new int[byId.length];
+        for (long entry : byId) {
+            int id = (int) (entry >>> 32);
+            if (count > 0 && ids[count - 1] == id) {
+                continue;
+            }
+            ids[count] = id;
+            positions[count] = (int) entry;
+            count++;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + count * 15);
+        buffer.position(HEADER_BYTES);
+        int previousId = 0;
+        for (int i = 0; i < count; i++) {
+            writeVarint(buffer, ids[i] - previousId);
+            previousId = ids[i];
+        }
+        int idBytes = buffer.position() - HEADER_BYTES;
+        for (int i = 0; i < count; i++) {
+            writeVarint(buffer, zigzag(positions[i] + 1));
+        }
+        int rankBytes = buffer.position() - HEADER_BYTES - idBytes;
+        for (int i = 0; i < count; i++) {
+            writeVarint(buffer, zigzag(ranking.get(positions[i]).getVoteNum()));
+        }
+
+        buffer.putInt(0, MAGIC);
+        buffer.putLong(4, timestamp);
+        buffer.putInt(12, count);
+        buffer.putInt(16, idBytes);
+        buffer.putInt(20, rankBytes);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    public static long timestamp(ByteBuffer buffer, int offset) {
+        if (buffer.getInt(offset) != MAGIC) {
+            throw new IllegalStateException("not a rank snapshot at " + offset);
+        }
+        return buffer.getLong(offset + 4);
+    }
+
+    // returns {rank, voteNum}, or null when the event is not in the snapshot
+    public static int[] find(ByteBuffer buffer, int offset, int rsEventId) {
+        int count = buffer.getInt(offset + 12);
+        int idBytes = buffer.getInt(offset + 16);
+        int rankBytes = buffer.getInt(offset + 20);
+
+        int[] cursor = {offset + HEADER_BYTES};
+        int id = 0;
+        int index = -1;
+        for (int i = 0; i < count; i++) {
+            id += readVarint(buffer, cursor);
+            if (id >= rsEventId) {
+                index = id == rsEventId ? i : -1;
+                break;
+            }
+        }
+        if (index < 0) {
+            return null;
+        }
+
+        cursor[0] = offset + HEADER_BYTES + idBytes;
+        int rank = skipTo(buffer, cursor, index);
+        cursor[0] = offset + HEADER_BYTES + idBytes + rankBytes;
+        int voteNum = skipTo(buffer, cursor, index);
+        return new int[]{rank, voteNum};
+    }
+
+    private static int skipTo(ByteBuffer buffer, int[] cursor, int index) {
+        for (int i = 0; i < index; i++) {
+            readVarint(buffer, cursor);
+        }
+        return unzigzag(readVarint(buffer, cursor));
+    }
+
+    private static void writeVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int readVarint(ByteBuffer buffer, int[] cursor) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(cursor[0]++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,162 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.ChangeType;
+import com.thoughtworks.rslist.domain.RankingChange;
+import com.thoughtworks.rslist.domain.RankingChanges;
+import com.thoughtworks.rslist.domain.RankingOrder;
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.event.ChangeLogResyncEvent;
+import com.thoughtworks.rslist.event.RsEventAddedEvent;
+import com.thoughtworks.rslist.event.RsEventChangedEvent;
+import com.thoughtworks.rslist.event.RsEventDeletedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Versioned feed of leaderboard position changes. Writes only mark the ranking
+// dirty; the next reader recomputes it once and diffs it against the previous
+// one, appending a record per event whose rank, vote count or paid slot changed.
+// The records live in a bounded ring, and a reader whose version has already
+// been overwritten is told to resync from /rs/list. Versions are local to a node
+// and its lifetime, so they are handed out with a random epoch; a reader bringing
+// another epoch, from another node or before a restart, is told to resync too.
+@Component
+public class RankingChangeFeed {
+
+    final RsService rsService;
+    final int mask;
+    final RankingChange[] ring;
+    final AtomicBoolean dirty = new AtomicBoolean(true);
+    final String epoch = UUID.randomUUID().toString();
+
+    private long version;
+    private Map<Integer, RankingChange> current;
+
+    @Autowired
+    public RankingChangeFeed(RsService rsService, @Value("${rs.ranking-changes.capacity}") int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        this.rsService = rsService;
+        this.mask = capacity - 1;
+        this.ring = new RankingChange[capacity];
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void start() {
+        if (dirty.getAndSet(false)) {
+            refresh();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRsEventChanged(RsEventChangedEvent event) {
+        if (event.getType() != ChangeType.REGISTER) {
+            dirty.set(true);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRsEventAdded(RsEventAddedEvent event) {
+        dirty.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRsEventDeleted(RsEventDeletedEvent event) {
+        dirty.set(true);
+    }
+
+    @EventListener
+    public void onChangeLogResync(ChangeLogResyncEvent event) {
+        dirty.set(true);
+    }
+
+    public synchronized RankingChanges getChangesSince(String epoch, long since) {
+        if (dirty.getAndSet(false)) {
+            refresh();
+        }
+
+        long oldest = Math.max(1, version - mask);
+        if (!this.epoch.equals(epoch) || since < oldest - 1 || since > version) {
+            return new RankingChanges(this.epoch, version, true, Collections.emptyList());
+        }
+
+        // an event that moved more than once is reported with its latest state only
+        Map<Integer, RankingChange> changes = new LinkedHashMap<>();
+        for (long v = since + 1; v <= version; v++) {
+            RankingChange change = ring[(int) (v & mask)];
+            changes.remove(change.getRsEventId());
+            changes.put(change.getRsEventId(), change);
+        }
+        return new RankingChanges(this.epoch, version, false, new ArrayList<>(changes.values()));
+    }
+
+    private void refresh() {
+        PaidSlots paidSlots = rsService.getPaidSlots();
+        List<RsEvent> ranking = rsService.getTopRsEvents(Integer.MAX_VALUE, RankingOrder.VOTES, paidSlots);
+
+        Map<Integer, RankingChange> next = new LinkedHashMap<>();
+        int paidPosition = 0;
+        for (int i = 0; i < ranking.size(); i++) {
+            RsEvent rsEvent = ranking.get(i);
+            int rank = i + 1;
+            while (paidPosition < paidSlots.size && paidSlots.ranks[paidPosition] < rank) {
+                paidPosition++;
+            }
+            boolean paid = paidPosition < paidSlots.size
+                    && paidSlots.ranks[paidPosition] == rank
+                    && paidSlots.rsEventIds[paidPosition] == rsEvent.getId();
+
+            RankingChange entry = RankingChange.builder()
+                    .rsEventId(rsEvent.getId())
+                    .rank(rank)
+                    .paid(paid)
+                    .rsEvent(rsEvent)
+                    .build();
+            next.putIfAbsent(rsEvent.getId(), entry);
+        }
+
+        // the first ranking is the baseline every version is counted from
+        if (current != null) {
+            for (RankingChange entry : next.values()) {
+                RankingChange previous = current.get(entry.getRsEventId());
+                if (previous == null
+                        || previous.getRank() != entry.getRank()
+                        || previous.isPaid() != entry.isPaid()
+                        || previous.getRsEvent().getVoteNum() != entry.getRsEvent().getVoteNum()) {
+                    append(entry);
+                }
+            }
+            for (RankingChange previous : current.values()) {
+                if (!next.containsKey(previous.getRsEventId())) {
+                    append(RankingChange.builder()
+                            .rsEventId(previous.getRsEventId())
+                            .removed(true)
+                            .build());
+                }
+            }
+        }
+
+        current = next;
+    }
+
+    private void append(RankingChange entry) {
+        version++;
+        entry.setVersion(version);
+        ring[(int) (version & mask)] = entry;
+    }
+}
@@ -0,0 +1,156 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+// Merges paid slots into the organic order. Apart from the result list, the work
+// is done on int arrays sized by the requested window and the paid slot count, so
+// a ranking request leaves almost no garbage per ranked event.
+public class RankingEngine {
+
+    public static final Comparator<RsEvent> BY_VOTE_NUM_DESC =
+            Comparator.comparingInt(RsEvent::getVoteNum).reversed();
+
+    public List<RsEvent> rank(List<RsEvent> rsEventList, Map<Integer, Integer> rankRsEventIdMap, int limit) {
+        return rank(rsEventList, BY_VOTE_NUM_DESC, PaidSlots.of(rankRsEventIdMap), limit);
+    }
+
+    public List<RsEvent> rank(List<RsEvent> rsEventList, Comparator<RsEvent> order,
+                              PaidSlots paidSlots, int limit) {
+        int size = rsEventList.size();
+
+        // every paid event can cost at most one organic slot, so the first `limit`
+        // ranks never need more than `limit + paid` organic candidates
+        int organicLimit = (int) Math.min(size, (long) limit + paidSlots.size);
+        int[] organic = selectTop(rsEventList, order, organicLimit);
+        IntIntMap paidIndexById = getPaidIndexById(rsEventList, paidSlots);
+        IntIntMap addedPaidIds = new IntIntMap(paidSlots.size);
+
+        List<RsEvent> result = new ArrayList<>(Math.min(size, limit));
+        int paidPosition = 0;
+        int organicPosition = 0;
+
+        for (int rank = 1; rank <= size && result.size() < limit; rank++) {
+            while (paidPosition < paidSlots.size && paidSlots.ranks[paidPosition] < rank) {
+                paidPosition++;
+            }
+
+            if (paidPosition < paidSlots.size && paidSlots.ranks[paidPosition] == rank) {
+                int rsEventId = paidSlots.rsEventIds[paidPosition];
+                int index = paidIndexById.get(rsEventId, -1);
+
+                if (index >= 0) {
+                    result.add(rsEventList.get(index));
+                    addedPaidIds.put(rsEventId, index);
+                }
+            } else if (organicPosition < organic.length) {
+                addIfNotPaid(result, addedPaidIds, rsEventList.get(organic[organicPosition++]));
+            }
+        }
+
+        while (organicPosition < organic.length && result.size() < limit) {
+            addIfNotPaid(result, addedPaidIds, rsEventList.get(organic[organicPosition++]));
+        }
+
+        return result;
+    }
+
+    // bounded max-heap of indexes (worst candidate on top), heap-sorted in place at
+    // the end; ties keep their original order, as a stable full sort would
+    private int[] selectTop(List<RsEvent> rsEventList, Comparator<RsEvent> order, int limit) {
+        int[] heap = new int[limit];
+
+        if (limit == 0) {
+            return heap;
+        }
+
+        int heapSize = 0;
+        for (int i = 0; i < rsEventList.size(); i++) {
+            if (heapSize < limit) {
+                heap[heapSize] = i;
+                siftUp(rsEventList, order, heap, heapSize++);
+            } else if (compare(rsEventList, order, i, heap[0]) < 0) {
+                heap[0] = i;
+                siftDown(rsEventList, order, heap, 0, heapSize);
+            }
+        }
+
+        for (int end = heapSize - 1; end > 0; end--) {
+            int worst = heap[0];
+            heap[0] = heap[end];
+            heap[end] = worst;
+            siftDown(rsEventList, order, heap, 0, end);
+        }
+
+        return heap;
+    }
+
+    private void siftUp(List<RsEvent> rsEventList, Comparator<RsEvent> order, int[] heap, int position) {
+        int index = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (compare(rsEventList, order, index, heap[parent]) <= 0) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = index;
+    }
+
+    private void siftDown(List<RsEvent> rsEventList, Comparator<RsEvent> order, int[] heap, int position, int heapSize) {
+        int index = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && compare(rsEventList, order, heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (compare(rsEventList, order, heap[child], index) <= 0) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = index;
+    }
+
+    private int compare(List<RsEvent> rsEventList, Comparator<RsEvent> order, int a, int b) {
+        int compare = order.compare(rsEventList.get(a), rsEventList.get(b));
+        return compare != 0 ? compare : Integer.compare(a, b);
+    }
+
+    // first occurrence of every paid rs event in the list
+    private IntIntMap getPaidIndexById(List<RsEvent> rsEventList, PaidSlots paidSlots) {
+        IntIntMap paidIndexById = new IntIntMap(paidSlots.size);
+
+        for (int i = 0; i < paidSlots.size; i++) {
+            paidIndexById.put(paidSlots.rsEventIds[i], -1);
+        }
+
+        int unresolved = paidIndexById.size();
+        for (int i = 0; i < rsEventList.size() && unresolved > 0; i++) {
+            int rsEventId = rsEventList.get(i).getId();
+            if (paidIndexById.get(rsEventId, 0) == -1) {
+                paidIndexById.put(rsEventId, i);
+                unresolved--;
+            }
+        }
+
+        return paidIndexById;
+    }
+
+    // rs event ids are unique, so an organic candidate can only repeat an event
+    // that was already placed on a paid rank
+    private void addIfNotPaid(List<RsEvent> result, IntIntMap addedPaidIds, RsEvent rsEvent) {
+        if (!addedPaidIds.containsKey(rsEvent.getId())) {
+            result.add(rsEvent);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RankingOrder;
+import com.thoughtworks.rslist.domain.RankingSnapshot;
+import com.thoughtworks.rslist.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Full rankings are loaded off the request thread, one load per order at a time;
+// concurrent requests join the load in flight instead of issuing their own. A
+// request waits at most the latency budget and then falls back to the last good
+// snapshot, marked stale, or fails with 503 while there is none yet. Repeated slow or failed loads open a breaker during
+// which the snapshot is served without touching the database at all.
+@Service
+public class RankingSnapshotService {
+
+    final RsService rsService;
+    final long latencyBudgetMillis;
+    final int failureThreshold;
+    final long openDurationMillis;
+    final ExecutorService executor;
+    final Map<RankingOrder, AtomicReference<RankingSnapshot>> snapshots = new EnumMap<>(RankingOrder.class);
+    final Map<RankingOrder, AtomicReference<CompletableFuture<RankingSnapshot>>> refreshes =
+            new EnumMap<>(RankingOrder.class);
+    final AtomicInteger consecutiveFailures = new AtomicInteger();
+    final AtomicLong openUntil = new AtomicLong();
+
+    @Autowired
+    public RankingSnapshotService(RsService rsService,
+                                  @Value("${rs.ranking-snapshot.latency-budget}") long latencyBudgetMillis,
+                                  @Value("${rs.ranking-snapshot.failure-threshold}") int failureThreshold,
+                                  @Value("${rs.ranking-snapshot.open-duration}") long openDurationMillis) {
+        this.rsService = rsService;
+        this.latencyBudgetMillis = latencyBudgetMillis;
+        this.failureThreshold = failureThreshold;
+        this.openDurationMillis = openDurationMillis;
+
+        int orders = RankingOrder.values().length;
+        this.executor = new ThreadPoolExecutor(orders, orders, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(orders), runnable -> {
+                    Thread thread = new Thread(runnable, "ranking-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        for (RankingOrder order : RankingOrder.values()) {
+            snapshots.put(order, new AtomicReference<>());
+            refreshes.put(order, new AtomicReference<>());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public RankingSnapshot getAllRsEvents(RankingOrder order) {
+        RankingSnapshot snapshot = snapshots.get(order).get();
+
+        if (isOpen()) {
+            if (snapshot == null) {
+                throw new ServiceUnavailableException();
+            }
+            return snapshot.asStale();
+        }
+
+        CompletableFuture<RankingSnapshot> refresh = refresh(order);
+
+        try {
+            return refresh.get(latencyBudgetMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return fallBackTo(snapshot);
+        } catch (ExecutionException e) {
+            if (snapshot == null && e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            return fallBackTo(snapshot);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallBackTo(snapshot);
+        }
+    }
+
+    // the load keeps running in the background, so a later request may still find it done
+    private RankingSnapshot fallBackTo(RankingSnapshot snapshot) {
+        if (snapshot == null) {
+            throw new ServiceUnavailableException();
+        }
+        return snapshot.asStale();
+    }
+
+    boolean isOpen() {
+        return System.currentTimeMillis() < openUntil.get();
+    }
+
+    private CompletableFuture<RankingSnapshot> refresh(RankingOrder order) {
+        AtomicReference<CompletableFuture<RankingSnapshot>> inFlight = refreshes.get(order);
+
+        while (true) {
+            CompletableFuture<RankingSnapshot> current = inFlight.get();
+            if (current != null) {
+                return current;
+            }
+
+            CompletableFuture<RankingSnapshot> refresh = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, refresh)) {
+                executor.execute(() -> load(order, refresh, inFlight));
+                return refresh;
+            }
+        }
+    }
+
+    // the load is unregistered before it completes, so a request issued after a
+    // caller has seen the result always starts a load of its own
+    private void load(RankingOrder order, CompletableFuture<RankingSnapshot> refresh,
+                      AtomicReference<CompletableFuture<RankingSnapshot>> inFlight) {
+        long startedAt = System.currentTimeMillis();
+        try {
+            RankingSnapshot snapshot = new RankingSnapshot(rsService.getAllRsEvents(order), startedAt, false);
+            snapshots.get(order).set(snapshot);
+            recordOutcome(System.currentTimeMillis() - startedAt <= latencyBudgetMillis);
+            inFlight.set(null);
+            refresh.complete(snapshot);
+        } catch (RuntimeException e) {
+            recordOutcome(false);
+            inFlight.set(null);
+            refresh.completeExceptionally(e);
+        }
+    }
+
+    private void recordOutcome(boolean success) {
+        if (success) {
+            consecutiveFailures.set(0);
+            openUntil.set(0);
+        } else if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openUntil.set(System.currentTimeMillis() + openDurationMillis);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.ChangeType;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.event.ChangeLogResyncEvent;
+import com.thoughtworks.rslist.event.RsEventAddedEvent;
+import com.thoughtworks.rslist.event.RsEventChangedEvent;
+import com.thoughtworks.rslist.event.RsEventDeletedEvent;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+@Component
+public class RsEventSearchIndex {
+
+    private final ConcurrentNavigableMap<String, Set<Integer>> postings = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<Integer, String[]> tokensByRsEventId = new ConcurrentHashMap<>();
+
+    @Autowired
+    RsEventRepository rsEventRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void rebuild() {
+        rsEventRepository.findAll().forEach(this::add);
+    }
+
+    // events added meanwhile are not in the snapshot of known ids, so they are kept
+    @EventListener
+    public void onChangeLogResync(ChangeLogResyncEvent event) {
+        Set<Integer> known = new HashSet<>(tokensByRsEventId.keySet());
+        rsEventRepository.findAll().forEach(rsEventDto -> {
+            known.remove(rsEventDto.getId());
+            add(rsEventDto);
+        });
+        known.forEach(this::remove);
+    }
+
+    // both arrive from the entity listener inside the writing transaction, so they
+    // are applied only once it has committed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRsEventAdded(RsEventAddedEvent event) {
+        add(event.getRsEventDto());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRsEventDeleted(RsEventDeletedEvent event) {
+        event.getRsEventIds().forEach(this::remove);
+    }
+
+    // local inserts and removals arrive through the entity listener; bulk deletes and
+    // changes made by other nodes only through the change log
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRsEventChanged(RsEventChangedEvent event) {
+        if (event.getType() == ChangeType.DELETE) {
+            remove(event.getRsEventId());
+        } else if (event.getType() == ChangeType.ADD && event.isRemote()) {
+            rsEventRepository.findById(event.getRsEventId()).ifPresent(this::add);
+        }
+    }
+
+    public void add(RsEventDto rsEventDto) {
+        int rsEventId = rsEventDto.getId();
+        Set<String> tokens = new HashSet<>();
+        tokens.addAll(tokenize(rsEventDto.getEventName()));
+        tokens.addAll(tokenize(rsEventDto.getKeyword()));
+
+        remove(rsEventId);
+        String[] indexed = new String[tokens.size()];
+        int i = 0;
+        for (String token : tokens) {
+            postings.compute(token, (key, rsEventIds) -> {
+                Set<Integer> result = rsEventIds == null ? ConcurrentHashMap.newKeySet() : rsEventIds;
+                result.add(rsEventId);
+                return result;
+            });
+            // events share the posting key's string instead of each keeping a copy
+            String key = postings.ceilingKey(token);
+            indexed[i++] = token.equals(key) ? key : token;
+        }
+        tokensByRsEventId.put(rsEventId, indexed);
+    }
+
+    public void remove(int rsEventId) {
+        String[] tokens = tokensByRsEventId.remove(rsEventId);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            postings.computeIfPresent(token, (key, rsEventIds) -> {
+                rsEventIds.remove(rsEventId);
+                return rsEventIds.isEmpty() ? null : rsEventIds;
+            });
+        }
+    }
+
+    // every query token has to match as a prefix of some token of the event
+    public Set<Integer> search(String query) {
+        Set<Integer> result = null;
+
+        for (String token : tokenize(query)) {
+            Set<Integer> matches = new HashSet<>();
+            for (Map.Entry<String, Set<Integer>> entry :
+                    postings.subMap(token, true, token + Character.MAX_VALUE, true).entrySet()) {
+                matches.addAll(entry.getValue());
+            }
+
+            if (result == null) {
+                result = matches;
+            } else {
+                result.retainAll(matches);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+
+        return result == null ? Collections.emptySet() : result;
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -1,5 +1,7 @@
 package com.thoughtworks.rslist.service;
 
+import com.thoughtworks.rslist.domain.ChangeType;
+import com.thoughtworks.rslist.domain.RankingOrder;
 import com.thoughtworks.rslist.domain.RsEvent;
 import com.thoughtworks.rslist.domain.Trade;
 import com.thoughtworks.rslist.domain.Vote;
@@ -8,20 +10,30 @@ import com.thoughtworks.rslist.dto.TradeDto;
 import com.thoughtworks.rslist.dto.UserDto;
 import com.thoughtworks.rslist.dto.VoteDto;
 import com.thoughtworks.rslist.exception.AmountNotEnoughException;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
 import com.thoughtworks.rslist.repository.RsEventRepository;
 import com.thoughtworks.rslist.repository.TradeRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
 import com.thoughtworks.rslist.repository.VoteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class RsService {
@@ -30,29 +42,68 @@ public class RsService {
     final UserRepository userRepository;
     final VoteRepository voteRepository;
     final TradeRepository tradeRepository;
+    final RsEventSearchIndex rsEventSearchIndex;
+    final ChangeLogService changeLogService;
+    final TrendingScoreBoard trendingScoreBoard;
+    final IdExistenceFilter idExistenceFilter;
+    final RankingEngine rankingEngine = new RankingEngine();
+
+    static final String GLOBAL_BOARD = "";
+
+    // match sets up to this size are ranked from one lookup by id, larger ones from
+    // the vote order index
+    static final int SEARCH_LOOKUP_LIMIT = 1000;
 
     @Autowired
     public RsService(RsEventRepository rsEventRepository,
                      UserRepository userRepository,
                      VoteRepository voteRepository,
-                     TradeRepository tradeRepository) {
+                     TradeRepository tradeRepository,
+                     RsEventSearchIndex rsEventSearchIndex,
+                     ChangeLogService changeLogService,
+                     TrendingScoreBoard trendingScoreBoard,
+                     IdExistenceFilter idExistenceFilter) {
         this.rsEventRepository = rsEventRepository;
         this.userRepository = userRepository;
         this.voteRepository = voteRepository;
         this.tradeRepository = tradeRepository;
+        this.rsEventSearchIndex = rsEventSearchIndex;
+        this.changeLogService = changeLogService;
+        this.trendingScoreBoard = trendingScoreBoard;
+        this.idExistenceFilter = idExistenceFilter;
     }
 
+    @Transactional
+    public void addRsEvent(RsEvent rsEvent) {
+        Optional<UserDto> userDto = findUser(rsEvent.getUserId());
+        if (!userDto.isPresent()) {
+            throw new RequestNotValidException("invalid user");
+        }
+        RsEventDto rsEventDto = rsEventRepository.save(
+                RsEventDto.builder()
+                        .keyword(rsEvent.getKeyword())
+                        .eventName(rsEvent.getEventName())
+                        .voteNum(0)
+                        .user(userDto.get())
+                        .build());
+        changeLogService.record(ChangeType.ADD, rsEventDto.getId(), 0, null);
+    }
+
+    @Transactional
     public void vote(Vote vote, int rsEventId) {
-        Optional<RsEventDto> rsEventDto = rsEventRepository.findById(rsEventId);
-        Optional<UserDto> userDto = userRepository.findById(vote.getUserId());
+        Optional<RsEventDto> rsEventDto = findRsEvent(rsEventId);
+        Optional<UserDto> userDto = findUser(vote.getUserId());
         if (!rsEventDto.isPresent()
                 || !userDto.isPresent()
                 || vote.getVoteNum() > userDto.get().getVoteNum()) {
             throw new RuntimeException();
         }
+        // an untimed vote is stamped here, so every reader of the vote table, the
+        // trending rebuild included, sees the time the live listeners scored it at
+        LocalDateTime time = vote.getTime() == null ? LocalDateTime.now() : vote.getTime();
         VoteDto voteDto =
                 VoteDto.builder()
-                        .localDateTime(vote.getTime())
+                        .localDateTime(time)
                         .num(vote.getVoteNum())
                         .rsEvent(rsEventDto.get())
                         .user(userDto.get())
@@ -64,10 +115,49 @@ public class RsService {
         RsEventDto rsEvent = rsEventDto.get();
         rsEvent.setVoteNum(rsEvent.getVoteNum() + vote.getVoteNum());
         rsEventRepository.save(rsEvent);
+        changeLogService.record(ChangeType.VOTE, rsEventId, vote.getVoteNum(), time);
+    }
+
+    // a trusted miss rejects the id without a round trip; any other miss may be an id
+    // another node created that has not been replayed here yet, so the database
+    // decides and the filter learns what it missed
+    private Optional<UserDto> findUser(int userId) {
+        if (idExistenceFilter.mightContainUser(userId)) {
+            return userRepository.findById(userId);
+        }
+        if (idExistenceFilter.trustsMiss(userId)) {
+            return Optional.empty();
+        }
+        Optional<UserDto> userDto = userRepository.findById(userId);
+        userDto.ifPresent(item -> idExistenceFilter.confirmUser(userId));
+        return userDto;
+    }
+
+    private Optional<RsEventDto> findRsEvent(int rsEventId) {
+        if (idExistenceFilter.mightContainRsEvent(rsEventId)) {
+            return rsEventRepository.findById(rsEventId);
+        }
+        if (idExistenceFilter.trustsMiss(rsEventId)) {
+            return Optional.empty();
+        }
+        Optional<RsEventDto> rsEventDto = rsEventRepository.findById(rsEventId);
+        rsEventDto.ifPresent(item -> idExistenceFilter.confirmRsEvent(rsEventId));
+        return rsEventDto;
     }
 
+    @Transactional
     public void buy(Trade trade, int rsEventId) {
-        Optional<Integer> currentAmountOptional = tradeRepository.findCurrentAmountByRank(trade.getRank());
+        String keyword = trade.getKeyword() == null ? GLOBAL_BOARD : trade.getKeyword();
+
+        if (!keyword.equals(GLOBAL_BOARD)) {
+            Optional<RsEventDto> rsEventDto = rsEventRepository.findById(rsEventId);
+            if (!rsEventDto.isPresent() || !keyword.equals(rsEventDto.get().getKeyword())) {
+                throw new RequestNotValidException("invalid keyword");
+            }
+        }
+
+        Optional<Integer> currentAmountOptional =
+                tradeRepository.findCurrentAmountByKeywordAndRank(keyword, trade.getRank());
 
         if (currentAmountOptional.isPresent()) {
             int currentAmount = currentAmountOptional.get();
@@ -80,97 +170,180 @@ public class RsService {
         tradeRepository.save(TradeDto.builder()
                 .amount(trade.getAmount())
                 .rank(trade.getRank())
+                .keyword(keyword)
+                .expiresAt(LocalDateTime.now().plusSeconds(trade.getDuration()))
                 .rsEventDto(RsEventDto.builder()
                         .id(rsEventId)
                         .build())
                 .build());
+        changeLogService.record(ChangeType.BUY, rsEventId, trade.getAmount(), null);
     }
 
     public List<RsEvent> getAllRsEvents() {
-        List<RsEvent> rsEventList = rsEventRepository.findAll().stream()
-                .map(item -> RsEvent.builder()
-                        .id(item.getId())
-                        .eventName(item.getEventName())
-                        .keyword(item.getKeyword())
-                        .userId(item.getId())
-                        .voteNum(item.getVoteNum())
-                        .build())
-                .collect(Collectors.toList());
+        return getAllRsEvents(RankingOrder.VOTES);
+    }
 
-        return sortRsEventList(rsEventList);
+    public List<RsEvent> getAllRsEvents(RankingOrder order) {
+        return getTopRsEvents(Integer.MAX_VALUE, order);
     }
 
-    private List<RsEvent> sortRsEventList(List<RsEvent> rsEventList) {
-        rsEventList.sort((a, b) -> b.getVoteNum() - a.getVoteNum());
+    // a board is ranked on demand from its own rows, so the cost follows the board's
+    // size; no ordering is kept per board between requests
+    public List<RsEvent> getKeywordRsEvents(String keyword, RankingOrder order) {
+        return rank(rsEventRepository.findAllByKeyword(keyword), Integer.MAX_VALUE, order, getPaidSlots(keyword));
+    }
 
-        Map<Integer, Integer> rankRsEventIdMap = getRankRsEventIdMap();
+    public List<RsEvent> getRsEventsBetween(int start, int end, RankingOrder order) {
+        return getTopRsEvents(end, order).subList(start - 1, end);
+    }
 
-        int size = rsEventList.size();
-        Iterator<RsEvent> rsEventIterator = rsEventList.iterator();
-        List<RsEvent> result = new ArrayList<>(size);
+    // Matches come back in their /rs/list order. The ranks up to the last paid one are
+    // merged by the ranking engine from the events that can reach them; past those the
+    // list is in vote order, read for a few matches by id and for many from the vote
+    // order index until the page is filled. Only the page itself is then loaded.
+    @Transactional(readOnly = true)
+    public List<RsEvent> searchRsEvents(String query, int pageIndex, int pageSize) {
+        Set<Integer> matches = rsEventSearchIndex.search(query);
 
-        for (int i = 0; i < size; i++) {
-            int rank = i + 1;
+        if (matches.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        long from = (long) (pageIndex - 1) * pageSize;
+        long to = from + pageSize;
+        List<Integer> ranked = new ArrayList<>();
+        Set<Integer> placed = new HashSet<>();
 
-            if (rankRsEventIdMap.containsKey(rank)) {
-                int rsEventId = rankRsEventIdMap.get(rank);
-                RsEvent rsEventFromList = getRsEventFromList(rsEventList, rsEventId);
-                result.add(rsEventFromList);
+        for (RsEvent rsEvent : getPaidRanks(getPaidSlots())) {
+            placed.add(rsEvent.getId());
+            if (matches.contains(rsEvent.getId())) {
+                ranked.add(rsEvent.getId());
+            }
+        }
+
+        if (ranked.size() < to) {
+            long remaining = to - ranked.size();
+            if (matches.size() <= SEARCH_LOOKUP_LIMIT) {
+                rsEventRepository.findVoteNumsByIdIn(matches).stream()
+                        .filter(row -> !placed.contains((Integer) row[0]))
+                        .sorted(Comparator.comparingInt((Object[] row) -> (Integer) row[1]).reversed()
+                                .thenComparingInt(row -> (Integer) row[0]))
+                        .limit(remaining)
+                        .forEach(row -> ranked.add((Integer) row[0]));
             } else {
-                RsEvent nextRsEvent = rsEventIterator.next();
-                addRsEventIfNotExists(result, nextRsEvent);
+                try (Stream<Integer> rsEventIds = rsEventRepository.streamIdsInVoteOrder()) {
+                    rsEventIds.filter(rsEventId -> matches.contains(rsEventId) && !placed.contains(rsEventId))
+                            .limit(remaining)
+                            .forEach(ranked::add);
+                }
             }
         }
 
-        while (rsEventIterator.hasNext()) {
-            RsEvent nextRsEvent = rsEventIterator.next();
-            addRsEventIfNotExists(result, nextRsEvent);
+        if (ranked.size() <= from) {
+            return Collections.emptyList();
         }
 
-        return result;
+        List<Integer> page = ranked.subList((int) from, (int) Math.min(to, ranked.size()));
+        Map<Integer, RsEventDto> rsEventDtos = new HashMap<>();
+        rsEventRepository.findAllById(page).forEach(rsEventDto -> rsEventDtos.put(rsEventDto.getId(), rsEventDto));
+        return page.stream()
+                .map(rsEventDtos::get)
+                .filter(Objects::nonNull)
+                .map(this::toRsEvent)
+                .collect(Collectors.toList());
     }
 
-    private Map<Integer, Integer> getRankRsEventIdMap() {
-        List<TradeDto> allTrades = tradeRepository.findAll();
-        Map<Integer, TradeDto> rankMap = new HashMap<>();
+    // the first ranks up to the last paid one, exactly as /rs/list merges them: every
+    // organic event that can reach them is among the top `rank + paid` by votes
+    private List<RsEvent> getPaidRanks(PaidSlots paidSlots) {
+        if (paidSlots.size == 0) {
+            return Collections.emptyList();
+        }
+
+        int lastPaidRank = paidSlots.ranks[paidSlots.size - 1];
+        Map<Integer, RsEventDto> candidates = new LinkedHashMap<>();
+        rsEventRepository.findAllByOrderByVoteNumDescIdAsc(PageRequest.of(0, lastPaidRank + paidSlots.size))
+                .forEach(rsEventDto -> candidates.put(rsEventDto.getId(), rsEventDto));
+        List<Integer> paidIds = new ArrayList<>(paidSlots.size);
+        for (int i = 0; i < paidSlots.size; i++) {
+            if (!candidates.containsKey(paidSlots.rsEventIds[i])) {
+                paidIds.add(paidSlots.rsEventIds[i]);
+            }
+        }
+        rsEventRepository.findAllById(paidIds).forEach(rsEventDto -> candidates.put(rsEventDto.getId(), rsEventDto));
 
-        allTrades.forEach(tradeDto -> {
-            int rank = tradeDto.getRank();
-            int amount = tradeDto.getAmount();
+        return rank(new ArrayList<>(candidates.values()), lastPaidRank, RankingOrder.VOTES, paidSlots);
+    }
 
-            if (rankMap.containsKey(rank)) {
-                int currentAmount = rankMap.get(rank).getAmount();
+    private List<RsEvent> getTopRsEvents(int limit, RankingOrder order) {
+        return getTopRsEvents(limit, order, getPaidSlots());
+    }
 
-                if (currentAmount >= amount) {
-                    return;
-                }
-            }
+    List<RsEvent> getTopRsEvents(int limit, RankingOrder order, PaidSlots paidSlots) {
+        return rank(rsEventRepository.findAll(), limit, order, paidSlots);
+    }
 
-            rankMap.put(rank, tradeDto);
-        });
+    private List<RsEvent> rank(List<RsEventDto> rsEventDtos, int limit, RankingOrder order, PaidSlots paidSlots) {
+        List<RsEvent> rsEventList = rsEventDtos.stream()
+                .map(this::toRsEvent)
+                .collect(Collectors.toList());
 
-        return rankMap.entrySet()
-                .stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().getRsEventDto().getId()));
+        return rankingEngine.rank(rsEventList, getComparator(order, rsEventList), paidSlots, limit);
     }
 
-    private RsEvent getRsEventFromList(List<RsEvent> rsEventList, int rsEventId) {
-        return rsEventList
-                .stream()
-                .filter(item -> item.getId() == rsEventId)
-                .findFirst()
-                .get();
+    private RsEvent toRsEvent(RsEventDto item) {
+        return RsEvent.builder()
+                .id(item.getId())
+                .eventName(item.getEventName())
+                .keyword(item.getKeyword())
+                .userId(item.getId())
+                .voteNum(item.getVoteNum())
+                .build();
     }
 
-    private boolean listNotContainsRsEvent(List<RsEvent> rsEventList, int rsEventId) {
-        return rsEventList
-                .stream()
-                .noneMatch(item -> item.getId() == rsEventId);
+    private Comparator<RsEvent> getComparator(RankingOrder order, List<RsEvent> rsEventList) {
+        if (order != RankingOrder.TRENDING) {
+            return RankingEngine.BY_VOTE_NUM_DESC;
+        }
+
+        // scores keep moving while we sort, so rank against a snapshot of them
+        Map<Integer, Double> scores = trendingScoreBoard.getScores(
+                rsEventList.stream().map(RsEvent::getId).collect(Collectors.toList()));
+        return Comparator.comparingDouble((RsEvent rsEvent) -> scores.get(rsEvent.getId())).reversed();
+    }
+
+    PaidSlots getPaidSlots() {
+        return getPaidSlots(GLOBAL_BOARD);
     }
 
-    private void addRsEventIfNotExists(List<RsEvent> rsEventList, RsEvent rsEvent) {
-        if (listNotContainsRsEvent(rsEventList, rsEvent.getId())) {
-            rsEventList.add(rsEvent);
+    private PaidSlots getPaidSlots(String keyword) {
+        List<TradeDto> allTrades = tradeRepository.findAllByKeyword(keyword);
+        int tradeCount = allTrades.size();
+        IntIntMap winnerIndexByRank = new IntIntMap(tradeCount);
+
+        for (int i = 0; i < tradeCount; i++) {
+            TradeDto tradeDto = allTrades.get(i);
+            int winnerIndex = winnerIndexByRank.get(tradeDto.getRank(), -1);
+
+            if (winnerIndex < 0 || allTrades.get(winnerIndex).getAmount() < tradeDto.getAmount()) {
+                winnerIndexByRank.put(tradeDto.getRank(), i);
+            }
         }
+
+        // an expired winner frees its rank until the expiry service archives it
+        LocalDateTime now = LocalDateTime.now();
+        long[] slots = new long[winnerIndexByRank.size()];
+        int slotCount = 0;
+
+        for (int i = 0; i < tradeCount; i++) {
+            TradeDto tradeDto = allTrades.get(i);
+
+            if (winnerIndexByRank.get(tradeDto.getRank(), -1) == i
+                    && (tradeDto.getExpiresAt() == null || tradeDto.getExpiresAt().isAfter(now))) {
+                slots[slotCount++] = PaidSlots.pack(tradeDto.getRank(), tradeDto.getRsEventDto().getId());
+            }
+        }
+
+        return new PaidSlots(slots, slotCount);
     }
 }
@@ -0,0 +1,85 @@
+package com.thoughtworks.rslist.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Hashed timing wheel. schedule() is an O(1) lock-free enqueue from any thread; a
+// single driver thread calls advance(), which moves new timeouts into their slot and
+// expires the current slot. A timeout further away than one revolution simply stays
+// in its slot until its deadline tick comes round.
+public class TimerWheel<T> {
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<List<Timeout<T>>> slots;
+    private final Queue<Timeout<T>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final long startNanos;
+    private long currentTick;
+
+    public TimerWheel(long tickNanos, int wheelSize, long startNanos) {
+        if (tickNanos <= 0 || wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("tick must be positive and wheel size a power of two");
+        }
+        this.tickNanos = tickNanos;
+        this.mask = wheelSize - 1;
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.startNanos = startNanos;
+    }
+
+    public void schedule(T item, long deadlineNanos) {
+        pending.add(new Timeout<>(item, deadlineNanos));
+        size.incrementAndGet();
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public void advance(long nowNanos, Consumer<T> onExpired) {
+        long targetTick = (nowNanos - startNanos) / tickNanos;
+
+        while (currentTick <= targetTick) {
+            transferPending();
+
+            Iterator<Timeout<T>> iterator = slots.get((int) (currentTick & mask)).iterator();
+            while (iterator.hasNext()) {
+                Timeout<T> timeout = iterator.next();
+                if (timeout.deadlineTick <= currentTick) {
+                    iterator.remove();
+                    size.decrementAndGet();
+                    onExpired.accept(timeout.item);
+                }
+            }
+            currentTick++;
+        }
+    }
+
+    private void transferPending() {
+        Timeout<T> timeout;
+        while ((timeout = pending.poll()) != null) {
+            long deadlineTick = (timeout.deadlineNanos - startNanos + tickNanos - 1) / tickNanos;
+            timeout.deadlineTick = Math.max(deadlineTick, currentTick);
+            slots.get((int) (timeout.deadlineTick & mask)).add(timeout);
+        }
+    }
+
+    private static class Timeout<T> {
+        final T item;
+        final long deadlineNanos;
+        long deadlineTick;
+
+        Timeout(T item, long deadlineNanos) {
+            this.item = item;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
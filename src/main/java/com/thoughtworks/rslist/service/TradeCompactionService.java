@@ -0,0 +1,77 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.ArchivedTrade;
+import com.thoughtworks.rslist.repository.TradeArchiveRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class TradeCompactionService {
+
+    final TradeRepository tradeRepository;
+    final TradeArchiveRepository tradeArchiveRepository;
+    final TransactionTemplate transactionTemplate;
+    final int batchSize;
+
+    @Autowired
+    public TradeCompactionService(TradeRepository tradeRepository,
+                                  TradeArchiveRepository tradeArchiveRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${rs.trade.compaction-batch-size}") int batchSize) {
+        this.tradeRepository = tradeRepository;
+        this.tradeArchiveRepository = tradeArchiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${rs.trade.compaction-interval}")
+    public void compact() {
+        int archived;
+        do {
+            archived = compactBatch();
+        } while (archived == batchSize);
+    }
+
+    // each batch commits on its own, so a long backlog never holds locks on the whole table;
+    // the compaction lock is taken before the ids are read, so a node that waited for
+    // another one finds the ids it archived already gone
+    private int compactBatch() {
+        Integer archived = transactionTemplate.execute(status -> {
+            tradeArchiveRepository.lockCompaction();
+            List<Integer> ids = tradeRepository.findSupersededIds(PageRequest.of(0, batchSize));
+
+            if (ids.isEmpty()) {
+                return 0;
+            }
+
+            tradeArchiveRepository.archiveTradesByIds(ids, LocalDateTime.now());
+            tradeRepository.bulkDeleteByIds(ids);
+            return ids.size();
+        });
+        return archived == null ? 0 : archived;
+    }
+
+    public List<ArchivedTrade> getArchivedTrades(String keyword, int rank, int pageIndex, int pageSize) {
+        Pageable pageable = PageRequest.of(pageIndex - 1, pageSize);
+        return tradeArchiveRepository.findAllByKeywordAndRankOrderByIdDesc(keyword, rank, pageable).stream()
+                .map(item -> ArchivedTrade.builder()
+                        .amount(item.getAmount())
+                        .rank(item.getRank())
+                        .keyword(item.getKeyword())
+                        .rsEventId(item.getRsEventId())
+                        .archivedAt(item.getArchivedAt())
+                        .build())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,156 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.ChangeType;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.event.ChangeLogResyncEvent;
+import com.thoughtworks.rslist.event.RsEventChangedEvent;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Forward exponential decay: a vote at time t adds num * e^(lambda * (t - landmark)).
+// Every score shares the e^(-lambda * (now - landmark)) factor, so stored values rank
+// directly; the landmark is moved forward before the exponent can overflow.
+// A rebuild fixes a cutoff and streams only votes from the HORIZON_HALF_LIVES before
+// it, older ones no longer weighing anything; live votes timed before the cutoff are
+// left to the rebuild and only later ones are added as they arrive. Votes are stored
+// with a time, the server's when the client sent none, so the rebuild finds them all.
+@Component
+public class TrendingScoreBoard {
+
+    static final double MAX_EXPONENT = 50;
+    static final double MIN_SCORE = 1e-9;
+    static final int HORIZON_HALF_LIVES = 40;
+
+    private final double lambda;
+    private final Duration horizon;
+    private final ConcurrentMap<Integer, DoubleAdder> scores = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile long landmarkSecond;
+    private volatile LocalDateTime cutoff;
+
+    @Autowired
+    VoteRepository voteRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    public TrendingScoreBoard(@Value("${rs.trending.half-life}") Duration halfLife) {
+        this.lambda = Math.log(2) / halfLife.getSeconds();
+        this.horizon = halfLife.multipliedBy(HORIZON_HALF_LIVES);
+        this.landmarkSecond = nowSecond();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void rebuild() {
+        LocalDateTime rebuildCutoff = LocalDateTime.now();
+        lock.writeLock().lock();
+        try {
+            scores.clear();
+            cutoff = rebuildCutoff;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            try (Stream<Vote> votes = voteRepository.streamVotes(rebuildCutoff.minus(horizon), rebuildCutoff)) {
+                votes.forEach(vote -> add(vote.getRsEventId(), vote.getVoteNum(), vote.getTime()));
+            }
+            return null;
+        });
+    }
+
+    @EventListener
+    public void onChangeLogResync(ChangeLogResyncEvent event) {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRsEventChanged(RsEventChangedEvent event) {
+        if (event.getType() == ChangeType.VOTE) {
+            LocalDateTime rebuildCutoff = cutoff;
+            if (rebuildCutoff == null || event.getTime() == null || !event.getTime().isBefore(rebuildCutoff)) {
+                add(event.getRsEventId(), event.getAmount(), event.getTime());
+            }
+        } else if (event.getType() == ChangeType.DELETE) {
+            scores.remove(event.getRsEventId());
+        }
+    }
+
+    public void add(int rsEventId, int voteNum, LocalDateTime time) {
+        long now = nowSecond();
+        long second = time == null ? now : Math.min(now, time.atZone(ZoneId.systemDefault()).toEpochSecond());
+
+        if (lambda * (second - landmarkSecond) > MAX_EXPONENT) {
+            renormalize(second);
+        }
+
+        lock.readLock().lock();
+        try {
+            scores.computeIfAbsent(rsEventId, key -> new DoubleAdder())
+                    .add(voteNum * Math.exp(lambda * (second - landmarkSecond)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<Integer, Double> getScores(Collection<Integer> rsEventIds) {
+        Map<Integer, Double> result = new HashMap<>();
+        rsEventIds.forEach(rsEventId -> {
+            DoubleAdder score = scores.get(rsEventId);
+            result.put(rsEventId, score == null ? 0 : score.sum());
+        });
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${rs.trending.renormalize-interval}")
+    public void renormalize() {
+        renormalize(nowSecond());
+    }
+
+    void renormalize(long newLandmarkSecond) {
+        lock.writeLock().lock();
+        try {
+            if (newLandmarkSecond <= landmarkSecond) {
+                return;
+            }
+            double factor = Math.exp(-lambda * (newLandmarkSecond - landmarkSecond));
+            scores.values().forEach(score -> {
+                double value = score.sum() * factor;
+                score.reset();
+                score.add(value);
+            });
+            scores.values().removeIf(score -> Math.abs(score.sum()) < MIN_SCORE);
+            landmarkSecond = newLandmarkSecond;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static long nowSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
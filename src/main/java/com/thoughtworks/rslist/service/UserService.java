@@ -0,0 +1,60 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.User;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+public class UserService {
+
+    final RsEventRepository rsEventRepository;
+    final UserRepository userRepository;
+    final VoteRepository voteRepository;
+    final TradeRepository tradeRepository;
+    final ChangeLogService changeLogService;
+
+    @Autowired
+    public UserService(RsEventRepository rsEventRepository,
+                       UserRepository userRepository,
+                       VoteRepository voteRepository,
+                       TradeRepository tradeRepository,
+                       ChangeLogService changeLogService) {
+        this.rsEventRepository = rsEventRepository;
+        this.userRepository = userRepository;
+        this.voteRepository = voteRepository;
+        this.tradeRepository = tradeRepository;
+        this.changeLogService = changeLogService;
+    }
+
+    @Transactional
+    public void register(User user) {
+        UserDto userDto = new UserDto();
+        userDto.setGender(user.getGender());
+        userDto.setPhone(user.getPhone());
+        userDto.setVoteNum(user.getVoteNum());
+        userDto.setAge(user.getAge());
+        userDto.setEmail(user.getEmail());
+        userDto.setUserName(user.getUserName());
+        userDto = userRepository.save(userDto);
+        changeLogService.recordUserRegistered(userDto.getId());
+    }
+
+    @Transactional
+    public void deleteUser(int userId) {
+        List<Integer> rsEventIds = rsEventRepository.findIdsByUserId(userId);
+        changeLogService.recordRsEventsDeletedByUser(userId, rsEventIds);
+        rsEventRepository.subtractVotesByUserId(userId);
+        tradeRepository.bulkDeleteByRsEventUserId(userId);
+        voteRepository.bulkDeleteByUserIdOrRsEventUserId(userId);
+        rsEventRepository.bulkDeleteByUserId(userId);
+        userRepository.bulkDeleteById(userId);
+    }
+}
@@ -0,0 +1,122 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.AuditAction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Audit trail of vote and buy requests. Request threads only publish into the ring
+// buffer; a dedicated consumer thread writes audit_log in JDBC batches, so the
+// audit costs the request no database work. On shutdown the ring is drained.
+@Component
+public class VoteAuditLog {
+
+    static final String INSERT_SQL = "INSERT INTO audit_log "
+            + "(action, user_id, rs_event_id, amount, accepted, reason, latency_micros, occurred_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    final JdbcTemplate jdbcTemplate;
+    final AuditRingBuffer ringBuffer;
+    final int batchSize;
+    final AuditWaitStrategy waitStrategy;
+    final long drainTimeoutMillis;
+    final AtomicLong written = new AtomicLong();
+    final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean running = true;
+    private volatile boolean consumerParked;
+    private Thread consumer;
+
+    @Autowired
+    public VoteAuditLog(JdbcTemplate jdbcTemplate,
+                        @Value("${rs.audit.capacity}") int capacity,
+                        @Value("${rs.audit.batch-size}") int batchSize,
+                        @Value("${rs.audit.wait-strategy}") AuditWaitStrategy waitStrategy,
+                        @Value("${rs.audit.drain-timeout}") long drainTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ringBuffer = new AuditRingBuffer(capacity);
+        this.batchSize = batchSize;
+        this.waitStrategy = waitStrategy;
+        this.drainTimeoutMillis = drainTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        consumer = new Thread(this::consume, "vote-audit");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(consumer);
+        consumer.join(drainTimeoutMillis);
+    }
+
+    public void publish(AuditAction action, Integer userId, int rsEventId, int amount,
+                        boolean accepted, String reason, long latencyNanos) {
+        if (!ringBuffer.tryPublish(action, userId, rsEventId, amount, accepted, reason, latencyNanos,
+                System.currentTimeMillis())) {
+            return;
+        }
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getDropped() {
+        return ringBuffer.getDropped();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    private void consume() {
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        int attempt = 0;
+
+        while (running || !ringBuffer.isEmpty()) {
+            if (ringBuffer.drainTo(batch, batchSize) > 0) {
+                write(batch);
+                batch.clear();
+                attempt = 0;
+                continue;
+            }
+
+            if (!running) {
+                // a producer has claimed a slot but not published it yet
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                continue;
+            }
+
+            consumerParked = waitStrategy == AuditWaitStrategy.BLOCKING;
+            attempt = waitStrategy.idle(attempt);
+            consumerParked = false;
+        }
+    }
+
+    private void write(List<Object[]> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+            written.addAndGet(batch.size());
+        } catch (DataAccessException e) {
+            failed.addAndGet(batch.size());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.thoughtworks.rslist.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtworks.rslist.domain.ExportFormat;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+// Writes votes straight from a forward-only cursor, one row at a time, so an export
+// holds no more than the driver's fetch size and the writer's buffer in memory. Each
+// export keeps a pooled connection for as long as it streams, so at most
+// max-concurrent exports run at once and the rest of the pool stays with requests.
+@Service
+public class VoteExportService {
+
+    static final String CSV_HEADER = "userId,rsEventId,time,voteNum\n";
+
+    // stand in for a missing end of the time range, both within what a MySQL DATETIME can hold
+    static final LocalDateTime EARLIEST = LocalDateTime.of(1000, 1, 1, 0, 0);
+    static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    final VoteRepository voteRepository;
+    final ObjectMapper objectMapper;
+    final Semaphore exports;
+
+    @Autowired
+    public VoteExportService(VoteRepository voteRepository, ObjectMapper objectMapper,
+                             @Value("${rs.vote-export.max-concurrent}") int maxConcurrentExports) {
+        this.voteRepository = voteRepository;
+        this.objectMapper = objectMapper;
+        this.exports = new Semaphore(maxConcurrentExports);
+    }
+
+    public boolean tryStartExport() {
+        return exports.tryAcquire();
+    }
+
+    public void finishExport() {
+        exports.release();
+    }
+
+    @Transactional(readOnly = true)
+    public long export(LocalDateTime from, LocalDateTime to, Integer rsEventId,
+                       ExportFormat format, Writer writer) throws IOException {
+        long count = 0;
+
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+
+        try (Stream<Vote> votes = streamVotes(from, to, rsEventId)) {
+            Iterator<Vote> iterator = votes.iterator();
+            while (iterator.hasNext()) {
+                write(iterator.next(), format, writer);
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    // votes without a time only match when no range is asked for
+    private Stream<Vote> streamVotes(LocalDateTime from, LocalDateTime to, Integer rsEventId) {
+        if (from == null && to == null) {
+            return rsEventId == null ? voteRepository.streamVotes()
+                    : voteRepository.streamVotesByRsEventId(rsEventId);
+        }
+
+        LocalDateTime lower = from == null ? EARLIEST : from;
+        LocalDateTime upper = to == null ? LATEST : to;
+        return rsEventId == null ? voteRepository.streamVotes(lower, upper)
+                : voteRepository.streamVotesByRsEventId(rsEventId, lower, upper);
+    }
+
+    private void write(Vote vote, ExportFormat format, Writer writer) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(vote));
+        } else {
+            writer.write(Integer.toString(vote.getUserId()));
+            writer.write(',');
+            writer.write(Integer.toString(vote.getRsEventId()));
+            writer.write(',');
+            if (vote.getTime() != null) {
+                writer.write(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(vote.getTime()));
+            }
+            writer.write(',');
+            writer.write(Integer.toString(vote.getVoteNum()));
+        }
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,172 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.VoteRefillDto;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRefillRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Tops every user up to the vote budget once per period. Users are walked in id order,
+// chunk-size at a time, each chunk being one set-based UPDATE over a primary key range
+// committed together with the cursor in vote_refill, so a crashed run resumes after its
+// last committed chunk and live votes only ever wait for one short chunk. Runs pause
+// between chunks, so they get a thread of their own rather than the shared scheduler's.
+@Service
+public class VoteRefillService {
+
+    final UserRepository userRepository;
+    final VoteRefillRepository voteRefillRepository;
+    final TransactionTemplate transactionTemplate;
+    final boolean enabled;
+    final long periodSeconds;
+    final int budget;
+    final int chunkSize;
+    final long throttleMillis;
+    final long checkIntervalMillis;
+
+    private ScheduledExecutorService executor;
+
+    @Autowired
+    public VoteRefillService(UserRepository userRepository,
+                             VoteRefillRepository voteRefillRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${rs.vote-refill.enabled}") boolean enabled,
+                             @Value("${rs.vote-refill.period}") Duration period,
+                             @Value("${rs.vote-refill.budget}") int budget,
+                             @Value("${rs.vote-refill.chunk-size}") int chunkSize,
+                             @Value("${rs.vote-refill.throttle}") long throttleMillis,
+                             @Value("${rs.vote-refill.check-interval}") long checkIntervalMillis) {
+        if (period.getSeconds() <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("period and chunk size must be positive");
+        }
+        this.userRepository = userRepository;
+        this.voteRefillRepository = voteRefillRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.periodSeconds = period.getSeconds();
+        this.budget = budget;
+        this.chunkSize = chunkSize;
+        this.throttleMillis = throttleMillis;
+        this.checkIntervalMillis = checkIntervalMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "vote-refill");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::refill, checkIntervalMillis, checkIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public void refill() {
+        try {
+            refill(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            // an exception would cancel the schedule; the next check resumes from the
+            // last committed cursor instead
+        }
+    }
+
+    void refill(LocalDateTime now) {
+        LocalDateTime periodStart = getPeriodStart(now);
+        int lastUserId = getCursor(periodStart);
+
+        while (lastUserId >= 0) {
+            lastUserId = refillChunk(periodStart, lastUserId);
+
+            if (lastUserId >= 0 && !pause()) {
+                return;
+            }
+        }
+    }
+
+    // periods are aligned to the local clock, so a P1D period starts at local midnight
+    LocalDateTime getPeriodStart(LocalDateTime now) {
+        long seconds = now.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(seconds, periodSeconds) * periodSeconds, 0,
+                ZoneOffset.UTC);
+    }
+
+    // the user id to continue after, or -1 once the period has been fully applied
+    private int getCursor(LocalDateTime periodStart) {
+        Optional<VoteRefillDto> state = voteRefillRepository.findById(periodStart);
+
+        if (!state.isPresent()) {
+            try {
+                transactionTemplate.execute(status -> voteRefillRepository.insertPeriod(periodStart));
+            } catch (DataIntegrityViolationException e) {
+                // another node opened the period first; carry on from its cursor
+            }
+            state = voteRefillRepository.findById(periodStart);
+        }
+
+        return state.map(item -> item.getCompletedAt() != null ? -1 : item.getLastUserId()).orElse(-1);
+    }
+
+    private int refillChunk(LocalDateTime periodStart, int afterUserId) {
+        Integer next = transactionTemplate.execute(status -> {
+            List<Integer> ids = userRepository.findIdsAfter(afterUserId, PageRequest.of(0, chunkSize));
+
+            if (ids.isEmpty()) {
+                voteRefillRepository.complete(periodStart, LocalDateTime.now());
+                return -1;
+            }
+
+            int toUserId = ids.get(ids.size() - 1);
+
+            // moving the cursor first serializes nodes on the vote_refill row: whoever
+            // loses the race updates nothing and re-reads the cursor instead
+            if (voteRefillRepository.advance(periodStart, afterUserId, toUserId) == 0) {
+                return null;
+            }
+
+            userRepository.refillVoteNumBetween(afterUserId, toUserId, budget);
+            return toUserId;
+        });
+
+        return next != null ? next : getCursor(periodStart);
+    }
+
+    private boolean pause() {
+        if (throttleMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(throttleMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
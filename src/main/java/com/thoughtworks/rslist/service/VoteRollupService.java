@@ -0,0 +1,187 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.ChangeType;
+import com.thoughtworks.rslist.domain.RollupGranularity;
+import com.thoughtworks.rslist.domain.VoteRollup;
+import com.thoughtworks.rslist.event.RsEventChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Per rs event vote totals by minute and by hour. Committed local votes are summed in
+// memory and upserted once per flush interval, so the vote path never touches
+// vote_rollup. Every node flushes only its own votes and the upsert adds them up;
+// the reactive application upserts its votes as it records them.
+// Minute rows expire after minute-retention; hour rows are kept.
+@Service
+public class VoteRollupService {
+
+    static final String UPSERT_SQL = "INSERT INTO vote_rollup (rs_event_id, granularity, bucket, vote_num, vote_count) "
+            + "VALUES (?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE vote_num = vote_num + VALUES(vote_num), "
+            + "vote_count = vote_count + VALUES(vote_count)";
+
+    static final String SELECT_SQL = "SELECT bucket, vote_num, vote_count FROM vote_rollup "
+            + "WHERE rs_event_id = ? AND granularity = ? AND bucket >= ? AND bucket < ?";
+
+    static final String DELETE_SQL = "DELETE FROM vote_rollup WHERE granularity = ? AND bucket < ?";
+
+    final JdbcTemplate jdbcTemplate;
+    final TransactionTemplate transactionTemplate;
+    final Duration minuteRetention;
+
+    // keyed by minute << 32 | rsEventId, valued {voteNum, voteCount}
+    private final ConcurrentHashMap<Long, long[]> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public VoteRollupService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${rs.vote-rollup.minute-retention}") Duration minuteRetention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.minuteRetention = minuteRetention;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRsEventChanged(RsEventChangedEvent event) {
+        if (event.getType() == ChangeType.VOTE && !event.isRemote()) {
+            add(event.getRsEventId(), event.getAmount(),
+                    event.getTime() == null ? LocalDateTime.now() : event.getTime());
+        }
+    }
+
+    public void add(int rsEventId, int voteNum, LocalDateTime time) {
+        pending.merge(key(toMinute(time), rsEventId), new long[]{voteNum, 1}, VoteRollupService::sum);
+    }
+
+    @Scheduled(fixedDelayString = "${rs.vote-rollup.flush-interval}")
+    @PreDestroy
+    public synchronized void flush() {
+        // removing key by key hands each total to exactly one flush; votes that arrive
+        // meanwhile start a fresh total for the next one
+        Map<Long, long[]> minutes = new HashMap<>();
+        for (Long key : pending.keySet()) {
+            long[] counts = pending.remove(key);
+            if (counts != null) {
+                minutes.put(key, counts);
+            }
+        }
+
+        if (minutes.isEmpty()) {
+            return;
+        }
+
+        Map<Long, long[]> hours = new HashMap<>();
+        minutes.forEach((key, counts) -> hours.merge(
+                key(Math.floorDiv(minuteOf(key), 60) * 60, rsEventIdOf(key)), counts, VoteRollupService::sum));
+
+        List<Object[]> rows = new ArrayList<>(minutes.size() + hours.size());
+        addRows(rows, RollupGranularity.MINUTE, minutes);
+        addRows(rows, RollupGranularity.HOUR, hours);
+
+        try {
+            transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, rows));
+        } catch (RuntimeException e) {
+            // a failed statement, or a transaction that never began or committed, leaves
+            // nothing behind, so the totals go back to be retried on the next flush
+            minutes.forEach((key, counts) -> pending.merge(key, counts, VoteRollupService::sum));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rs.vote-rollup.retention-check-interval}")
+    public void expire() {
+        jdbcTemplate.update(DELETE_SQL, RollupGranularity.MINUTE.name(),
+                Timestamp.valueOf(LocalDateTime.now().minus(minuteRetention)));
+    }
+
+    // whole hours inside the range are read from hour rows and only the ragged edges
+    // from minute rows, so a long range costs one row per hour rather than per minute
+    public List<VoteRollup> getVoteRollups(int rsEventId, LocalDateTime from, LocalDateTime to,
+                                           RollupGranularity granularity) {
+        TreeMap<LocalDateTime, long[]> buckets = new TreeMap<>();
+
+        if (granularity == RollupGranularity.MINUTE) {
+            collect(buckets, rsEventId, RollupGranularity.MINUTE, from, to, granularity);
+        } else {
+            LocalDateTime hourFrom = from.truncatedTo(ChronoUnit.HOURS);
+            if (hourFrom.isBefore(from)) {
+                hourFrom = hourFrom.plusHours(1);
+            }
+            LocalDateTime hourTo = to.truncatedTo(ChronoUnit.HOURS);
+
+            if (hourFrom.isBefore(hourTo)) {
+                collect(buckets, rsEventId, RollupGranularity.MINUTE, from, hourFrom, granularity);
+                collect(buckets, rsEventId, RollupGranularity.HOUR, hourFrom, hourTo, granularity);
+                collect(buckets, rsEventId, RollupGranularity.MINUTE, hourTo, to, granularity);
+            } else {
+                collect(buckets, rsEventId, RollupGranularity.MINUTE, from, to, granularity);
+            }
+        }
+
+        return buckets.entrySet().stream()
+                .map(entry -> new VoteRollup(entry.getKey(), entry.getValue()[0], entry.getValue()[1]))
+                .collect(Collectors.toList());
+    }
+
+    private void collect(Map<LocalDateTime, long[]> buckets, int rsEventId, RollupGranularity source,
+                         LocalDateTime from, LocalDateTime to, RollupGranularity granularity) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        jdbcTemplate.query(SELECT_SQL,
+                resultSet -> {
+                    buckets.merge(granularity.truncate(resultSet.getTimestamp(1).toLocalDateTime()),
+                            new long[]{resultSet.getLong(2), resultSet.getLong(3)}, VoteRollupService::sum);
+                },
+                rsEventId, source.name(), Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    private void addRows(List<Object[]> rows, RollupGranularity granularity, Map<Long, long[]> totals) {
+        totals.forEach((key, counts) -> rows.add(new Object[]{
+                rsEventIdOf(key),
+                granularity.name(),
+                Timestamp.valueOf(LocalDateTime.ofEpochSecond(minuteOf(key) * 60, 0, ZoneOffset.UTC)),
+                counts[0],
+                counts[1]}));
+    }
+
+    // minutes count from the epoch on the local clock, matching the DATETIME buckets
+    private static long toMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static long key(long minute, int rsEventId) {
+        return minute << 32 | (rsEventId & 0xFFFFFFFFL);
+    }
+
+    private static long minuteOf(long key) {
+        return key >> 32;
+    }
+
+    private static int rsEventIdOf(long key) {
+        return (int) key;
+    }
+
+    private static long[] sum(long[] a, long[] b) {
+        return new long[]{a[0] + b[0], a[1] + b[1]};
+    }
+}
@@ -0,0 +1,179 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RankingOrder;
+import com.thoughtworks.rslist.domain.WarmUpReport;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Runs once the application has started and before it reports ready: fills the
+// connection pool, executes every read query the hot paths use, loads the ranking
+// snapshots and sends loopback requests through the ranking endpoints so that
+// the first real requests after a deploy do not pay for a cold JIT and pool.
+// Steps are best effort; a failing step is reported but does not block readiness.
+// The node-local caches load in ApplicationReadyEvent listeners ordered ahead of this
+// one, so readiness is only reported once they are all in place.
+@Service
+public class WarmUpService {
+
+    final DataSource dataSource;
+    final RsEventRepository rsEventRepository;
+    final UserRepository userRepository;
+    final VoteRepository voteRepository;
+    final TradeRepository tradeRepository;
+    final RsService rsService;
+    final RankingSnapshotService rankingSnapshotService;
+    final Environment environment;
+    final boolean enabled;
+    final int connections;
+    final int iterations;
+
+    private final Map<String, Long> timings = new LinkedHashMap<>();
+    private final List<String> failedSteps = new ArrayList<>();
+    private volatile boolean ready;
+
+    @Autowired
+    public WarmUpService(DataSource dataSource,
+                         RsEventRepository rsEventRepository,
+                         UserRepository userRepository,
+                         VoteRepository voteRepository,
+                         TradeRepository tradeRepository,
+                         RsService rsService,
+                         RankingSnapshotService rankingSnapshotService,
+                         Environment environment,
+                         @Value("${rs.warm-up.enabled}") boolean enabled,
+                         @Value("${rs.warm-up.connections}") int connections,
+                         @Value("${rs.warm-up.iterations}") int iterations) {
+        this.dataSource = dataSource;
+        this.rsEventRepository = rsEventRepository;
+        this.userRepository = userRepository;
+        this.voteRepository = voteRepository;
+        this.tradeRepository = tradeRepository;
+        this.rsService = rsService;
+        this.rankingSnapshotService = rankingSnapshotService;
+        this.environment = environment;
+        this.enabled = enabled;
+        this.connections = connections;
+        this.iterations = iterations;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void warmUp() {
+        record("startup", ManagementFactory.getRuntimeMXBean().getUptime());
+
+        if (enabled) {
+            time("connection-pool", this::fillConnectionPool);
+            time("repository-queries", this::runRepositoryQueries);
+            time("ranking-caches", this::loadRankingCaches);
+            time("synthetic-requests", this::sendSyntheticRequests);
+        }
+
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public synchronized WarmUpReport getReport() {
+        return new WarmUpReport(ready, new LinkedHashMap<>(timings), new ArrayList<>(failedSteps));
+    }
+
+    private void time(String step, Runnable runnable) {
+        long startedAt = System.nanoTime();
+        try {
+            runnable.run();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                failedSteps.add(step);
+            }
+        }
+        record(step, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    private synchronized void record(String step, long millis) {
+        timings.put(step, millis);
+    }
+
+    // holding the connections at the same time forces the pool to open them all
+    private void fillConnectionPool() {
+        int target = connections;
+        if (dataSource instanceof HikariDataSource) {
+            target = Math.min(target, ((HikariDataSource) dataSource).getMaximumPoolSize());
+        }
+
+        List<Connection> borrowed = new ArrayList<>(target);
+        try {
+            for (int i = 0; i < target; i++) {
+                borrowed.add(dataSource.getConnection());
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            for (Connection connection : borrowed) {
+                try {
+                    connection.close();
+                } catch (SQLException ignored) {
+                    // the pool evicts broken connections by itself
+                }
+            }
+        }
+    }
+
+    private void runRepositoryQueries() {
+        for (int i = 0; i < iterations; i++) {
+            rsEventRepository.findById(0);
+            rsEventRepository.findIdsByUserId(0);
+            userRepository.findById(0);
+            voteRepository.findAllByUserIdAndRsEventId(0, 0, PageRequest.of(0, 1));
+            tradeRepository.findById(0);
+            tradeRepository.findCurrentAmountByKeywordAndRank("", 1);
+        }
+    }
+
+    private void loadRankingCaches() {
+        for (RankingOrder order : RankingOrder.values()) {
+            rankingSnapshotService.getAllRsEvents(order);
+        }
+        rsService.searchRsEvents("warm-up", 1, 10);
+    }
+
+    // only possible with an embedded server; mock environments skip it
+    private void sendSyntheticRequests() {
+        String port = environment.getProperty("local.server.port");
+        if (port == null) {
+            return;
+        }
+
+        RestTemplate restTemplate = new RestTemplate();
+        String baseUrl = "http://localhost:" + port;
+        for (int i = 0; i < iterations; i++) {
+            restTemplate.getForObject(baseUrl + "/rs/list", String.class);
+            restTemplate.getForObject(baseUrl + "/rs/list?order=trending", String.class);
+            restTemplate.getForObject(baseUrl + "/rs/search?q=warm-up", String.class);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.AuditAction;
+import com.thoughtworks.rslist.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs the blocking part of vote and buy requests off the servlet threads. The pool
+// has as many threads as the connection pool has connections, so writes wait here
+// rather than on a connection. Each endpoint holds at most queue-limit requests,
+// queued or running, so one slow endpoint cannot fill the queue for the other. A
+// request still queued when its endpoint's timeout passes fails with 503 and never
+// runs, so a 503 always means nothing was written. Once a task has started it is left
+// to finish, and its own outcome is returned unless the request outlives
+// spring.mvc.async.request-timeout, which is answered with 504. Every endpoint's
+// counts and its queued, running and in-flight requests are published as
+// rs.write-executor.* meters tagged with the endpoint.
+@Component
+public class WriteExecutor implements MeterBinder {
+
+    final ThreadPoolExecutor executor;
+    final ScheduledExecutorService timer;
+    final Map<AuditAction, Lane> lanes = new EnumMap<>(AuditAction.class);
+
+    @Autowired
+    public WriteExecutor(@Value("${rs.write-executor.threads}") int threads,
+                         @Value("${rs.write-executor.vote.queue-limit}") int voteQueueLimit,
+                         @Value("${rs.write-executor.vote.timeout}") long voteTimeoutMillis,
+                         @Value("${rs.write-executor.buy.queue-limit}") int buyQueueLimit,
+                         @Value("${rs.write-executor.buy.timeout}") long buyTimeoutMillis) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "write-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lanes.put(AuditAction.VOTE, new Lane(voteQueueLimit, voteTimeoutMillis));
+        lanes.put(AuditAction.BUY, new Lane(buyQueueLimit, buyTimeoutMillis));
+    }
+
+    @PreDestroy
+    public void stop() {
+        timer.shutdownNow();
+        executor.shutdown();
+    }
+
+    public CompletableFuture<Void> submit(AuditAction action, Runnable task) {
+        Lane lane = lanes.get(action);
+        CompletableFuture<Void> result = new CompletableFuture<>();
+
+        if (!lane.permits.tryAcquire()) {
+            lane.rejected.incrementAndGet();
+            result.completeExceptionally(new ServiceUnavailableException());
+            return result;
+        }
+        lane.submitted.incrementAndGet();
+
+        // whoever flips started first owns the permit: the task releases it when it
+        // finishes, the timeout when the task never got to run
+        AtomicBoolean started = new AtomicBoolean();
+        ScheduledFuture<?> timeout = timer.schedule(() -> {
+            if (started.compareAndSet(false, true)) {
+                lane.timedOut.incrementAndGet();
+                lane.permits.release();
+                result.completeExceptionally(new ServiceUnavailableException());
+            }
+        }, lane.timeoutMillis, TimeUnit.MILLISECONDS);
+
+        executor.execute(() -> {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            lane.running.incrementAndGet();
+            RuntimeException failure = null;
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                lane.failed.incrementAndGet();
+                failure = e;
+            } finally {
+                timeout.cancel(false);
+                lane.running.decrementAndGet();
+                lane.permits.release();
+            }
+            // completed only once the permit is back, so the caller never sees its
+            // own finished request still in flight
+            if (failure == null) {
+                result.complete(null);
+            } else {
+                result.completeExceptionally(failure);
+            }
+        });
+
+        return result;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        lanes.forEach((action, lane) -> {
+            String endpoint = action.name().toLowerCase(Locale.ROOT);
+            FunctionCounter.builder("rs.write-executor.submitted", lane, item -> item.submitted.get())
+                    .tag("endpoint", endpoint).register(registry);
+            FunctionCounter.builder("rs.write-executor.rejected", lane, item -> item.rejected.get())
+                    .tag("endpoint", endpoint).register(registry);
+            FunctionCounter.builder("rs.write-executor.timed-out", lane, item -> item.timedOut.get())
+                    .tag("endpoint", endpoint).register(registry);
+            FunctionCounter.builder("rs.write-executor.failed", lane, item -> item.failed.get())
+                    .tag("endpoint", endpoint).register(registry);
+            Gauge.builder("rs.write-executor.queued", lane, item -> item.getInFlight() - item.running.get())
+                    .tag("endpoint", endpoint).register(registry);
+            Gauge.builder("rs.write-executor.active", lane, item -> item.running.get())
+                    .tag("endpoint", endpoint).register(registry);
+            Gauge.builder("rs.write-executor.in-flight", lane, Lane::getInFlight)
+                    .tag("endpoint", endpoint).register(registry);
+        });
+    }
+
+    // queued tasks are kept; extra threads leave once they finish their current task
+    public void resize(int threads) {
+        if (threads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        } else {
+            executor.setCorePoolSize(threads);
+            executor.setMaximumPoolSize(threads);
+        }
+    }
+
+    public int getInFlight(AuditAction action) {
+        return lanes.get(action).getInFlight();
+    }
+
+    public long getSubmitted(AuditAction action) {
+        return lanes.get(action).submitted.get();
+    }
+
+    public long getRejected(AuditAction action) {
+        return lanes.get(action).rejected.get();
+    }
+
+    public long getTimedOut(AuditAction action) {
+        return lanes.get(action).timedOut.get();
+    }
+
+    public long getFailed(AuditAction action) {
+        return lanes.get(action).failed.get();
+    }
+
+    static class Lane {
+        final int queueLimit;
+        final long timeoutMillis;
+        final Semaphore permits;
+        final AtomicLong submitted = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong timedOut = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicInteger running = new AtomicInteger();
+
+        Lane(int queueLimit, long timeoutMillis) {
+            this.queueLimit = queueLimit;
+            this.timeoutMillis = timeoutMillis;
+            this.permits = new Semaphore(queueLimit);
+        }
+
+        int getInFlight() {
+            return queueLimit - permits.availablePermits();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+CREATE TABLE vote_rollup (
+    rs_event_id INTEGER    NOT NULL,
+    granularity VARCHAR(8) NOT NULL,
+    bucket      DATETIME   NOT NULL,
+    vote_num    BIGINT     NOT NULL,
+    vote_count  BIGINT     NOT NULL,
+    PRIMARY KEY (rs_event_id, granularity, bucket)
+);
+
+CREATE INDEX idx_vote_rollup_granularity_bucket ON vote_rollup (granularity, bucket);
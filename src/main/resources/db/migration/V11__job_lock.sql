@@ -0,0 +1,6 @@
+CREATE TABLE job_lock (
+    name VARCHAR(64) NOT NULL,
+    PRIMARY KEY (name)
+);
+
+INSERT INTO job_lock (name) VALUES ('trade-compaction');
@@ -0,0 +1 @@
+CREATE INDEX idx_rs_event_vote_num_id ON rs_event (vote_num DESC, id);
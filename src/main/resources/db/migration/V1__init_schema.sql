@@ -0,0 +1,52 @@
+CREATE TABLE hibernate_sequence (
+    next_val BIGINT
+);
+
+INSERT INTO hibernate_sequence VALUES (1);
+
+CREATE TABLE user (
+    id       INTEGER NOT NULL,
+    name     VARCHAR(255),
+    gender   VARCHAR(255),
+    age      INTEGER NOT NULL,
+    email    VARCHAR(255),
+    phone    VARCHAR(255),
+    vote_num INTEGER NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE rs_event (
+    id         INTEGER NOT NULL,
+    event_name VARCHAR(255),
+    keyword    VARCHAR(255),
+    vote_num   INTEGER NOT NULL,
+    user_id    INTEGER,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_rs_event_user FOREIGN KEY (user_id) REFERENCES user (id)
+);
+
+CREATE TABLE vote (
+    id              INTEGER NOT NULL,
+    local_date_time DATETIME,
+    num             INTEGER NOT NULL,
+    user_id         INTEGER,
+    rs_event_id     INTEGER,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_vote_user FOREIGN KEY (user_id) REFERENCES user (id),
+    CONSTRAINT fk_vote_rs_event FOREIGN KEY (rs_event_id) REFERENCES rs_event (id)
+);
+
+CREATE TABLE trade (
+    id          INTEGER NOT NULL AUTO_INCREMENT,
+    amount      INTEGER,
+    rank        INTEGER,
+    rs_event_id INTEGER,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_trade_rs_event FOREIGN KEY (rs_event_id) REFERENCES rs_event (id)
+);
+
+CREATE INDEX idx_rs_event_user_id ON rs_event (user_id);
+CREATE INDEX idx_vote_user_id_rs_event_id ON vote (user_id, rs_event_id);
+CREATE INDEX idx_vote_rs_event_id ON vote (rs_event_id);
+CREATE INDEX idx_trade_rank_amount ON trade (rank, amount);
+CREATE INDEX idx_trade_rs_event_id ON trade (rs_event_id);
@@ -0,0 +1,10 @@
+CREATE TABLE trade_archive (
+    id          INTEGER NOT NULL,
+    amount      INTEGER,
+    rank        INTEGER,
+    rs_event_id INTEGER,
+    archived_at DATETIME,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_trade_archive_rank_id ON trade_archive (rank, id);
@@ -0,0 +1,12 @@
+CREATE TABLE change_log (
+    id          BIGINT      NOT NULL AUTO_INCREMENT,
+    node_id     VARCHAR(36) NOT NULL,
+    type        VARCHAR(16) NOT NULL,
+    rs_event_id INTEGER     NOT NULL,
+    amount      INTEGER     NOT NULL,
+    occurred_at DATETIME    NOT NULL,
+    created_at  DATETIME    NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_change_log_created_at ON change_log (created_at);
@@ -0,0 +1 @@
+ALTER TABLE trade ADD COLUMN expires_at DATETIME;
@@ -0,0 +1 @@
+ALTER TABLE change_log ADD COLUMN user_id INTEGER;
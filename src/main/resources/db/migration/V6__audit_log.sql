@@ -0,0 +1,14 @@
+CREATE TABLE audit_log (
+    id             BIGINT       NOT NULL AUTO_INCREMENT,
+    action         VARCHAR(8)   NOT NULL,
+    user_id        INTEGER,
+    rs_event_id    INTEGER      NOT NULL,
+    amount         INTEGER      NOT NULL,
+    accepted       BOOLEAN      NOT NULL,
+    reason         VARCHAR(255),
+    latency_micros BIGINT       NOT NULL,
+    occurred_at    DATETIME     NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_audit_log_occurred_at ON audit_log (occurred_at);
@@ -0,0 +1,8 @@
+-- 191 characters keep a utf8mb4 key within InnoDB's 767 byte limit on COMPACT rows
+ALTER TABLE rs_event MODIFY COLUMN keyword VARCHAR(191);
+ALTER TABLE trade ADD COLUMN keyword VARCHAR(191) NOT NULL DEFAULT '';
+ALTER TABLE trade_archive ADD COLUMN keyword VARCHAR(191) NOT NULL DEFAULT '';
+
+CREATE INDEX idx_trade_keyword_rank_amount ON trade (keyword, rank, amount);
+CREATE INDEX idx_trade_archive_keyword_rank_id ON trade_archive (keyword, rank, id);
+CREATE INDEX idx_rs_event_keyword ON rs_event (keyword);
@@ -0,0 +1,6 @@
+CREATE TABLE vote_refill (
+    period_start DATETIME NOT NULL,
+    last_user_id INTEGER  NOT NULL,
+    completed_at DATETIME,
+    PRIMARY KEY (period_start)
+);
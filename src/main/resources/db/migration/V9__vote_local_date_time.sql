@@ -0,0 +1 @@
+CREATE INDEX idx_vote_local_date_time ON vote (local_date_time);
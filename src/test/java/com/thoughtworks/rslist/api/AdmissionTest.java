@@ -0,0 +1,65 @@
+package com.thoughtworks.rslist.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs against the embedded server, so client addresses are resolved the way the
+// load balancer's X-Forwarded-For header is in production.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "rs.admission.ip-permits-per-second=0.001",
+        "rs.admission.ip-burst=2",
+        "rs.write-executor.vote.queue-limit=0"})
+class AdmissionTest {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldLimitEachForwardedClientAddressSeparately() {
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, vote("203.0.113.7", 1));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, vote("203.0.113.7", 1));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, vote("203.0.113.7", 1));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, vote("203.0.113.8", 1));
+    }
+
+    @Test
+    void shouldAuditRequestsRejectedBeforeReachingTheController() throws InterruptedException {
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, vote("203.0.113.9", 2));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, vote("203.0.113.9", 2));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, vote("203.0.113.9", 2));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        int rejected;
+        do {
+            rejected = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_log "
+                    + "WHERE action = 'VOTE' AND rs_event_id = 2 AND accepted = FALSE "
+                    + "AND reason = 'too many requests'", Integer.class);
+            Thread.sleep(20);
+        } while (rejected == 0 && System.currentTimeMillis() < deadline);
+
+        assertEquals(1, rejected);
+    }
+
+    private HttpStatus vote(String clientAddress, int rsEventId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", clientAddress);
+        String body = "{\"userId\":1,\"voteNum\":1}";
+
+        return restTemplate.postForEntity("/rs/vote/" + rsEventId, new HttpEntity<>(body, headers), String.class)
+                .getStatusCode();
+    }
+}
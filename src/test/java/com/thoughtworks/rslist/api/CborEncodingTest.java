@@ -0,0 +1,85 @@
+package com.thoughtworks.rslist.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.Vote;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Encodes the 10k-element lists /rs/list and /voteRecord would return with mappers
+// configured like the JSON and CBOR converters, and compares size and encode time.
+class CborEncodingTest {
+
+    static final int SIZE = 10000;
+
+    ObjectMapper json = mapper().build();
+    ObjectMapper cbor = mapper().createXmlMapper(false).factory(new CBORFactory()).build();
+
+    @Test
+    void shouldEncodeRsEventListSmallerAndNoSlowerThanJson() throws JsonProcessingException {
+        Random random = new Random(20200601L);
+        List<RsEvent> rsEvents = new ArrayList<>(SIZE);
+        for (int id = 1; id <= SIZE; id++) {
+            rsEvents.add(new RsEvent(id, "event " + random.nextInt(1000000), "k" + random.nextInt(100),
+                    random.nextInt(100000), 1 + random.nextInt(SIZE)));
+        }
+
+        compare(rsEvents);
+    }
+
+    @Test
+    void shouldEncodeVoteListSmallerAndNoSlowerThanJson() throws JsonProcessingException {
+        Random random = new Random(20200601L);
+        LocalDateTime start = LocalDateTime.of(2020, 6, 1, 0, 0);
+        List<Vote> votes = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            votes.add(new Vote(1 + random.nextInt(SIZE), 1 + random.nextInt(SIZE),
+                    start.plusSeconds(random.nextInt(86400 * 30)), 1 + random.nextInt(10)));
+        }
+
+        compare(votes);
+    }
+
+    // both encoders are warmed up before the timed rounds; the time bound is loose
+    // because a shared build machine only gives a rough figure
+    private void compare(Object list) throws JsonProcessingException {
+        int jsonBytes = json.writeValueAsBytes(list).length;
+        int cborBytes = cbor.writeValueAsBytes(list).length;
+
+        for (int i = 0; i < 50; i++) {
+            json.writeValueAsBytes(list);
+            cbor.writeValueAsBytes(list);
+        }
+        long jsonNanos = encodeNanos(json, list);
+        long cborNanos = encodeNanos(cbor, list);
+
+        String report = String.format("json %d bytes in %d us, cbor %d bytes in %d us",
+                jsonBytes, jsonNanos / 1000, cborBytes, cborNanos / 1000);
+        assertTrue(cborBytes < jsonBytes * 0.9, report);
+        assertTrue(cborNanos < jsonNanos * 2, report);
+    }
+
+    private long encodeNanos(ObjectMapper objectMapper, Object list) throws JsonProcessingException {
+        int rounds = 50;
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            objectMapper.writeValueAsBytes(list);
+        }
+        return (System.nanoTime() - startedAt) / rounds;
+    }
+
+    // what Spring Boot's builder sets for this application
+    private static Jackson2ObjectMapperBuilder mapper() {
+        return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+}
@@ -0,0 +1,34 @@
+package com.thoughtworks.rslist.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"rs.warm-up.enabled=true", "rs.warm-up.iterations=2"})
+@AutoConfigureMockMvc
+class ReadinessControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    void shouldReportReadyWithTimingBreakdownAfterWarmUp() throws Exception {
+        mockMvc.perform(get("/ready"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ready", is(true)))
+                .andExpect(jsonPath("$.timings.startup", greaterThanOrEqualTo(0)))
+                .andExpect(jsonPath("$.timings['connection-pool']", greaterThanOrEqualTo(0)))
+                .andExpect(jsonPath("$.timings['repository-queries']", greaterThanOrEqualTo(0)))
+                .andExpect(jsonPath("$.timings['ranking-caches']", greaterThanOrEqualTo(0)))
+                .andExpect(jsonPath("$.failedSteps", empty()));
+    }
+}
@@ -1,5 +1,9 @@
 package com.thoughtworks.rslist.api;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.thoughtworks.rslist.domain.AuditAction;
 import com.thoughtworks.rslist.dto.RsEventDto;
 import com.thoughtworks.rslist.dto.TradeDto;
 import com.thoughtworks.rslist.dto.UserDto;
@@ -8,27 +12,41 @@ import com.thoughtworks.rslist.repository.RsEventRepository;
 import com.thoughtworks.rslist.repository.TradeRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
 import com.thoughtworks.rslist.repository.VoteRepository;
+import com.thoughtworks.rslist.service.WriteExecutor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
+import static com.thoughtworks.rslist.support.StatementCounter.assertAtMost;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -51,6 +69,27 @@ class RsControllerTest {
     @Autowired
     TradeRepository tradeRepository;
 
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    WriteExecutor writeExecutor;
+
+    @Value("${rs.write-executor.threads}")
+    int writeThreads;
+
+    @Value("${rs.write-executor.vote.timeout}")
+    long voteTimeout;
+
+    @Value("${rs.write-executor.buy.timeout}")
+    long buyTimeout;
+
+    @Value("${rs.coherence.gap-timeout}")
+    long gapTimeout;
+
+    @Value("${spring.mvc.async.request-timeout}")
+    long asyncRequestTimeout;
+
     private UserDto userDto;
 
     @BeforeEach
@@ -87,6 +126,78 @@ class RsControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void shouldGetRsEventListAsCbor() throws Exception {
+        UserDto save = userRepository.save(userDto);
+
+        RsEventDto rsEventDto =
+                RsEventDto.builder().keyword("无分类").eventName("第一条事件").user(save).build();
+
+        rsEventRepository.save(rsEventDto);
+
+        byte[] body = mockMvc
+                .perform(get("/rs/list").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode rsEvents = new ObjectMapper(new CBORFactory()).readTree(body);
+        assertEquals(rsEvents.size(), 1);
+        assertEquals(rsEvents.get(0).get("eventName").asText(), "第一条事件");
+        assertEquals(rsEvents.get(0).get("keyword").asText(), "无分类");
+    }
+
+    @Test
+    public void shouldGetRsEventListAsJsonByDefault() throws Exception {
+        mockMvc
+                .perform(get("/rs/list").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void shouldSearchRsEventsInVoteOrder() throws Exception {
+        UserDto save = userRepository.save(userDto);
+
+        rsEventRepository.save(RsEventDto.builder().keyword("经济").eventName("猪肉涨价了").voteNum(1).user(save).build());
+        rsEventRepository.save(RsEventDto.builder().keyword("经济").eventName("股市上涨").voteNum(5).user(save).build());
+        rsEventRepository.save(RsEventDto.builder().keyword("体育").eventName("比赛结束").voteNum(9).user(save).build());
+
+        mockMvc
+                .perform(get("/rs/search").param("q", "经"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].eventName", is("股市上涨")))
+                .andExpect(jsonPath("$[1].eventName", is("猪肉涨价了")));
+        mockMvc
+                .perform(get("/rs/search").param("q", "经济").param("pageIndex", "2").param("pageSize", "1"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].eventName", is("猪肉涨价了")));
+    }
+
+    @Test
+    public void shouldSearchRsEventsWithPaidEventsAtTheirRanks() throws Exception {
+        UserDto save = userRepository.save(userDto);
+
+        rsEventRepository.save(RsEventDto.builder().keyword("经济").eventName("股市上涨").voteNum(9).user(save).build());
+        rsEventRepository.save(RsEventDto.builder().keyword("体育").eventName("比赛结束").voteNum(5).user(save).build());
+        RsEventDto paid = rsEventRepository.save(
+                RsEventDto.builder().keyword("经济").eventName("猪肉涨价了").voteNum(1).user(save).build());
+        rsEventRepository.save(RsEventDto.builder().keyword("经济").eventName("油价下调").voteNum(3).user(save).build());
+        tradeRepository.save(TradeDto.builder().rank(2).amount(100).rsEventDto(paid).build());
+
+        mockMvc
+                .perform(get("/rs/search").param("q", "经济"))
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].eventName", is("股市上涨")))
+                .andExpect(jsonPath("$[1].eventName", is("猪肉涨价了")))
+                .andExpect(jsonPath("$[2].eventName", is("油价下调")));
+        mockMvc
+                .perform(get("/rs/search").param("q", "经济").param("pageIndex", "3").param("pageSize", "1"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].eventName", is("油价下调")));
+    }
+
     @Test
     public void shouldGetOneEvent() throws Exception {
         UserDto save = userRepository.save(userDto);
@@ -111,6 +222,28 @@ class RsControllerTest {
                 .andExpect(jsonPath("$.error", is("invalid index")));
     }
 
+    @Test
+    public void shouldGetRsListBetweenInTwoStatementsRegardlessOfRowCount() throws Exception {
+        for (int rowCount : new int[]{10, 100}) {
+            saveRsEventsOfDistinctUsers(rowCount);
+
+            assertAtMost(2, () -> mockMvc
+                    .perform(get("/rs/list").param("start", "1").param("end", "10"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(10))));
+        }
+    }
+
+    @Test
+    public void shouldGetRsEventInOneStatementRegardlessOfRowCount() throws Exception {
+        saveRsEventsOfDistinctUsers(100);
+
+        assertAtMost(1, () -> mockMvc
+                .perform(get("/rs/50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.eventName", is("event 50"))));
+    }
+
     @Test
     public void shouldGetRsListBetween() throws Exception {
         UserDto save = userRepository.save(userDto);
@@ -158,13 +291,17 @@ class RsControllerTest {
         mockMvc
                 .perform(post("/rs/event").content(jsonValue).contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isCreated());
-        List<RsEventDto> all = rsEventRepository.findAll();
-        assertNotNull(all);
-        assertEquals(all.size(), 1);
-        assertEquals(all.get(0).getEventName(), "猪肉涨价了");
-        assertEquals(all.get(0).getKeyword(), "经济");
-        assertEquals(all.get(0).getUser().getUserName(), save.getUserName());
-        assertEquals(all.get(0).getUser().getAge(), save.getAge());
+        // the user is fetched lazily, so it is read inside a transaction
+        new TransactionTemplate(transactionManager).execute(status -> {
+            List<RsEventDto> all = rsEventRepository.findAll();
+            assertNotNull(all);
+            assertEquals(all.size(), 1);
+            assertEquals(all.get(0).getEventName(), "猪肉涨价了");
+            assertEquals(all.get(0).getKeyword(), "经济");
+            assertEquals(all.get(0).getUser().getUserName(), save.getUserName());
+            assertEquals(all.get(0).getUser().getAge(), save.getAge());
+            return null;
+        });
     }
 
     @Test
@@ -186,12 +323,14 @@ class RsControllerTest {
                 String.format(
                         "{\"userId\":%d,\"time\":\"%s\",\"voteNum\":1}",
                         save.getId(), LocalDateTime.now().toString());
-        mockMvc
+        MvcResult mvcResult = mockMvc
                 .perform(
                         post("/rs/vote/{id}", rsEventDto.getId())
                                 .content(jsonValue)
                                 .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(status().isOk());
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isOk());
 
         UserDto userDto = userRepository.findById(save.getId()).get();
         RsEventDto newRsEvent = rsEventRepository.findById(rsEventDto.getId()).get();
@@ -209,12 +348,75 @@ class RsControllerTest {
                 .keyword("k")
                 .build());
 
-        mockMvc.perform(post("/rs/buy/" + rsEventDto.getId())
+        MvcResult mvcResult = mockMvc.perform(post("/rs/buy/" + rsEventDto.getId())
                 .contentType(MediaType.APPLICATION_JSON)
                 .content("{\"amount\":100,\"rank\":1}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void shouldAnswerAWriteOutlivingTheAsyncTimeoutWithGatewayTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < writeThreads; i++) {
+                writeExecutor.submit(AuditAction.BUY, () -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            MvcResult mvcResult = mockMvc.perform(post("/rs/vote/1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"userId\":1,\"voteNum\":1}"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            MockAsyncContext asyncContext = (MockAsyncContext) mvcResult.getRequest().getAsyncContext();
+            for (AsyncListener listener : asyncContext.getListeners()) {
+                listener.onTimeout(new AsyncEvent(asyncContext));
+            }
+
+            mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isGatewayTimeout())
+                    .andExpect(jsonPath("$.error", is("write outcome unknown")));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void shouldLetAStartedWriteFinishBeforeTheAsyncTimeout() {
+        long longestWrite = Math.max(voteTimeout, buyTimeout) + gapTimeout;
+        assertTrue(asyncRequestTimeout > longestWrite,
+                "async timeout " + asyncRequestTimeout + " ms, longest write " + longestWrite + " ms");
+    }
+
+    @Test
+    void shouldBuyFailWhenTradeInvalid() throws Exception {
+        RsEventDto rsEventDto = rsEventRepository.save(RsEventDto.builder()
+                .eventName("e")
+                .keyword("k")
+                .build());
+
+        mockMvc.perform(post("/rs/buy/" + rsEventDto.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"amount\":100,\"rank\":0}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/rs/buy/" + rsEventDto.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"amount\":-1,\"rank\":1}"))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(0, tradeRepository.count());
+    }
+
     @Test
     void shouldBuyFailWhenNoEnoughAmount() throws Exception {
         int rankToBuy = 1;
@@ -234,9 +436,13 @@ class RsControllerTest {
                         .build())
                 .build());
 
-        mockMvc.perform(post("/rs/buy/" + rsEventDto.getId())
+        MvcResult mvcResult = mockMvc.perform(post("/rs/buy/" + rsEventDto.getId())
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(String.format("{\"amount\":%d,\"rank\":%d}", amount, rankToBuy)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error", is("amount not enough")));
     }
@@ -294,4 +500,51 @@ class RsControllerTest {
                 .andExpect(jsonPath("$[2].id", is(3)))
                 .andExpect(jsonPath("$[3].id", is(1)));
     }
+
+    @Test
+    void shouldGetTrendingRsEventList() throws Exception {
+        UserDto save = userRepository.save(userDto);
+        RsEventDto old = rsEventRepository.save(
+                RsEventDto.builder().keyword("k").eventName("old").voteNum(0).user(save).build());
+        RsEventDto recent = rsEventRepository.save(
+                RsEventDto.builder().keyword("k").eventName("recent").voteNum(0).user(save).build());
+
+        vote(save.getId(), old.getId(), 5, LocalDateTime.now().minusDays(2));
+        vote(save.getId(), recent.getId(), 2, LocalDateTime.now());
+
+        mockMvc.perform(get("/rs/list"))
+                .andExpect(jsonPath("$[0].eventName", is("old")))
+                .andExpect(jsonPath("$[1].eventName", is("recent")));
+        mockMvc.perform(get("/rs/list").param("order", "trending"))
+                .andExpect(jsonPath("$[0].eventName", is("recent")))
+                .andExpect(jsonPath("$[1].eventName", is("old")));
+    }
+
+    @Test
+    void shouldGetErrorWhenOrderInvalid() throws Exception {
+        mockMvc.perform(get("/rs/list").param("order", "random"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("invalid order")));
+    }
+
+    private void saveRsEventsOfDistinctUsers(int count) {
+        int saved = (int) rsEventRepository.count();
+        for (int i = saved + 1; i <= count; i++) {
+            UserDto user = userRepository.save(UserDto.builder().userName("user " + i).age(19).voteNum(10).build());
+            RsEventDto rsEvent = rsEventRepository.save(
+                    RsEventDto.builder().keyword("无分类").eventName("event " + i).voteNum(i).user(user).build());
+            if (i == 1) {
+                tradeRepository.save(TradeDto.builder().amount(10).rank(1).rsEventDto(rsEvent).build());
+            }
+        }
+    }
+
+    private void vote(int userId, int rsEventId, int voteNum, LocalDateTime time) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(post("/rs/vote/{id}", rsEventId)
+                .content(String.format("{\"userId\":%d,\"time\":\"%s\",\"voteNum\":%d}", userId, time, voteNum))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isOk());
+    }
 }
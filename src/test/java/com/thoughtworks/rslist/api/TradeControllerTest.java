@@ -0,0 +1,133 @@
+package com.thoughtworks.rslist.api;
+
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.TradeDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.TradeArchiveRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
+import com.thoughtworks.rslist.service.TradeCompactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TradeControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    RsEventRepository rsEventRepository;
+
+    @Autowired
+    TradeRepository tradeRepository;
+
+    @Autowired
+    TradeArchiveRepository tradeArchiveRepository;
+
+    @Autowired
+    TradeCompactionService tradeCompactionService;
+
+    RsEventDto rsEventDto;
+
+    @BeforeEach
+    void setUp() {
+        rsEventDto = rsEventRepository.save(RsEventDto.builder()
+                .eventName("e")
+                .keyword("k")
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        tradeArchiveRepository.deleteAll();
+        tradeRepository.deleteAll();
+        rsEventRepository.deleteAll();
+    }
+
+    @Test
+    void shouldKeepOnlyWinningTradePerRank() {
+        saveTrade(1, 100);
+        saveTrade(1, 120);
+        saveTrade(1, 150);
+        saveTrade(2, 80);
+
+        tradeCompactionService.compact();
+
+        List<TradeDto> trades = tradeRepository.findAll();
+        assertEquals(trades.size(), 2);
+        assertEquals(trades.stream().filter(item -> item.getRank() == 1).findFirst().get().getAmount(),
+                Integer.valueOf(150));
+        assertEquals(tradeArchiveRepository.findAll().size(), 2);
+    }
+
+    @Test
+    void shouldArchiveEachTradeOnceWhenNodesCompactTogether() {
+        for (int amount = 1; amount <= 50; amount++) {
+            saveTrade(1, amount);
+        }
+
+        ExecutorService nodes = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFuture.allOf(
+                    CompletableFuture.runAsync(tradeCompactionService::compact, nodes),
+                    CompletableFuture.runAsync(tradeCompactionService::compact, nodes)).join();
+        } finally {
+            nodes.shutdown();
+        }
+
+        assertEquals(tradeRepository.findAll().size(), 1);
+        assertEquals(tradeArchiveRepository.findAll().size(), 49);
+    }
+
+    @Test
+    void shouldGetArchivedTradesOfRank() throws Exception {
+        saveTrade(1, 100);
+        saveTrade(1, 120);
+        saveTrade(1, 150);
+
+        tradeCompactionService.compact();
+
+        mockMvc.perform(get("/trade/archive").param("rank", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].amount", is(120)))
+                .andExpect(jsonPath("$[0].rsEventId", is(rsEventDto.getId())))
+                .andExpect(jsonPath("$[1].amount", is(100)));
+        mockMvc.perform(get("/trade/archive").param("rank", "1").param("pageIndex", "2").param("pageSize", "1"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].amount", is(100)));
+    }
+
+    @Test
+    void shouldGetErrorWhenPageInvalid() throws Exception {
+        mockMvc.perform(get("/trade/archive").param("rank", "1").param("pageIndex", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("invalid page")));
+    }
+
+    private void saveTrade(int rank, int amount) {
+        tradeRepository.save(TradeDto.builder()
+                .rank(rank)
+                .amount(amount)
+                .rsEventDto(rsEventDto)
+                .build());
+    }
+}
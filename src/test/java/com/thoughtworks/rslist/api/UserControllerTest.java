@@ -3,9 +3,13 @@ package com.thoughtworks.rslist.api;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.thoughtworks.rslist.domain.User;
 import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.TradeDto;
 import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.dto.VoteDto;
 import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +18,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -28,10 +33,14 @@ class UserControllerTest {
   ObjectMapper objectMapper;
   @Autowired UserRepository userRepository;
   @Autowired RsEventRepository rsEventRepository;
+  @Autowired VoteRepository voteRepository;
+  @Autowired TradeRepository tradeRepository;
 
   @BeforeEach
   void setUp() {
     objectMapper = new ObjectMapper();
+    tradeRepository.deleteAll();
+    voteRepository.deleteAll();
     rsEventRepository.deleteAll();
     userRepository.deleteAll();
   }
@@ -124,4 +133,56 @@ class UserControllerTest {
     assertEquals(userRepository.findAll().size(), 0);
     assertEquals(rsEventRepository.findAll().size(), 0);
   }
+
+  @Test
+  public void shouldDeleteUserWithVotesAndTrades() throws Exception {
+    UserDto author =
+        userRepository.save(
+            UserDto.builder()
+                .voteNum(10)
+                .phone("18888888888")
+                .gender("female")
+                .email("a@b.com")
+                .age(19)
+                .userName("idolice")
+                .build());
+    UserDto voter =
+        userRepository.save(
+            UserDto.builder()
+                .voteNum(10)
+                .phone("18888888889")
+                .gender("male")
+                .email("b@b.com")
+                .age(20)
+                .userName("xiaoli")
+                .build());
+    RsEventDto authorEvent =
+        rsEventRepository.save(
+            RsEventDto.builder().keyword("keyword").eventName("author").voteNum(3).user(author).build());
+    RsEventDto voterEvent =
+        rsEventRepository.save(
+            RsEventDto.builder().keyword("keyword").eventName("voter").voteNum(6).user(voter).build());
+    voteRepository.save(
+        VoteDto.builder().user(voter).rsEvent(authorEvent).num(3).localDateTime(LocalDateTime.now()).build());
+    voteRepository.save(
+        VoteDto.builder().user(author).rsEvent(voterEvent).num(2).localDateTime(LocalDateTime.now()).build());
+    voteRepository.save(
+        VoteDto.builder().user(voter).rsEvent(voterEvent).num(4).localDateTime(LocalDateTime.now()).build());
+    tradeRepository.save(TradeDto.builder().amount(100).rank(1).rsEventDto(authorEvent).build());
+    tradeRepository.save(TradeDto.builder().amount(100).rank(2).rsEventDto(voterEvent).build());
+
+    mockMvc.perform(delete("/user/{id}", author.getId())).andExpect(status().isOk());
+
+    assertEquals(userRepository.findAll().size(), 1);
+    List<RsEventDto> rsEvents = rsEventRepository.findAll();
+    assertEquals(rsEvents.size(), 1);
+    assertEquals(rsEvents.get(0).getId(), voterEvent.getId());
+    assertEquals(rsEvents.get(0).getVoteNum(), 4);
+    List<VoteDto> votes = voteRepository.findAll();
+    assertEquals(votes.size(), 1);
+    assertEquals(votes.get(0).getNum(), 4);
+    List<TradeDto> trades = tradeRepository.findAll();
+    assertEquals(trades.size(), 1);
+    assertEquals((int) trades.get(0).getRank(), 2);
+  }
 }
@@ -6,6 +6,7 @@ import com.thoughtworks.rslist.dto.VoteDto;
 import com.thoughtworks.rslist.repository.RsEventRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
 import com.thoughtworks.rslist.repository.VoteRepository;
+import com.thoughtworks.rslist.service.VoteExportService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,12 +15,23 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -37,10 +49,15 @@ class VoteControllerTest {
     @Autowired
     VoteRepository voteRepository;
 
+    @Autowired
+    VoteExportService voteExportService;
+
     UserDto userDto;
 
     RsEventDto rsEventDto;
 
+    LocalDateTime time = LocalDateTime.of(2020, 5, 20, 13, 14, 0);
+
     @BeforeEach
     void setUp() {
         userDto = UserDto.builder().userName("idolice").age(19).email("a@b.com").gender("female")
@@ -49,7 +66,7 @@ class VoteControllerTest {
         rsEventDto = RsEventDto.builder().user(userDto).eventName("event name").keyword("keyword").voteNum(0)
                 .build();
         rsEventDto = rsEventRepository.save(rsEventDto);
-        VoteDto voteDto = VoteDto.builder().user(userDto).rsEvent(rsEventDto).localDateTime(LocalDateTime.now())
+        VoteDto voteDto = VoteDto.builder().user(userDto).rsEvent(rsEventDto).localDateTime(time)
                 .num(5).build();
         voteRepository.save(voteDto);
     }
@@ -113,4 +130,87 @@ class VoteControllerTest {
 
 
     }
+
+    @Test
+    public void shouldExportVotesAsCsv() throws Exception {
+        RsEventDto otherRsEventDto = rsEventRepository.save(RsEventDto.builder().user(userDto)
+                .eventName("other event").keyword("keyword").voteNum(0).build());
+        voteRepository.save(VoteDto.builder().user(userDto).rsEvent(otherRsEventDto)
+                .localDateTime(time.plusHours(1)).num(2).build());
+
+        mockMvc.perform(get("/votes/export"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(content().string("userId,rsEventId,time,voteNum\n"
+                        + userDto.getId() + "," + rsEventDto.getId() + ",2020-05-20T13:14:00,5\n"
+                        + userDto.getId() + "," + otherRsEventDto.getId() + ",2020-05-20T14:14:00,2\n"));
+
+        mockMvc.perform(get("/votes/export").param("rsEventId", String.valueOf(otherRsEventDto.getId())))
+                .andExpect(content().string("userId,rsEventId,time,voteNum\n"
+                        + userDto.getId() + "," + otherRsEventDto.getId() + ",2020-05-20T14:14:00,2\n"));
+
+        mockMvc.perform(get("/votes/export").param("from", "2020-05-20T14:00:00"))
+                .andExpect(content().string("userId,rsEventId,time,voteNum\n"
+                        + userDto.getId() + "," + otherRsEventDto.getId() + ",2020-05-20T14:14:00,2\n"));
+    }
+
+    @Test
+    public void shouldExportVotesWithoutTimeOnlyWhenNoRangeIsGiven() throws Exception {
+        voteRepository.save(VoteDto.builder().user(userDto).rsEvent(rsEventDto).num(3).build());
+
+        mockMvc.perform(get("/votes/export").param("rsEventId", String.valueOf(rsEventDto.getId())))
+                .andExpect(content().string("userId,rsEventId,time,voteNum\n"
+                        + userDto.getId() + "," + rsEventDto.getId() + ",2020-05-20T13:14:00,5\n"
+                        + userDto.getId() + "," + rsEventDto.getId() + ",,3\n"));
+
+        mockMvc.perform(get("/votes/export").param("to", "2020-05-21T00:00:00"))
+                .andExpect(content().string("userId,rsEventId,time,voteNum\n"
+                        + userDto.getId() + "," + rsEventDto.getId() + ",2020-05-20T13:14:00,5\n"));
+    }
+
+    @Test
+    public void shouldRejectExportWhileAnotherOneRuns() throws Exception {
+        assertTrue(voteExportService.tryStartExport());
+        try {
+            mockMvc.perform(get("/votes/export"))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            voteExportService.finishExport();
+        }
+    }
+
+    @Test
+    public void shouldExportVotesAsGzippedNdjson() throws Exception {
+        byte[] body = mockMvc.perform(get("/votes/export").param("format", "ndjson")
+                .header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        String ndjson = gunzip(body);
+
+        assertEquals(1, ndjson.split("\n").length);
+        assertTrue(ndjson.contains("\"rsEventId\":" + rsEventDto.getId()));
+        assertTrue(ndjson.contains("\"voteNum\":5"));
+    }
+
+    @Test
+    public void shouldRejectUnknownExportFormat() throws Exception {
+        mockMvc.perform(get("/votes/export").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("invalid format")));
+    }
+
+    private String gunzip(byte[] body) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(body)),
+                StandardCharsets.UTF_8)) {
+            char[] buffer = new char[1024];
+            int read;
+            while ((read = reader.read(buffer)) > 0) {
+                builder.append(buffer, 0, read);
+            }
+        }
+        return builder.toString();
+    }
 }
@@ -0,0 +1,81 @@
+package com.thoughtworks.rslist.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class QueryPlanTest {
+
+    static final String URL = "jdbc:h2:mem:queryPlan;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    static Connection connection;
+
+    @BeforeAll
+    static void migrate() throws SQLException {
+        Flyway.configure().dataSource(URL, "sa", "").load().migrate();
+        connection = DriverManager.getConnection(URL, "sa", "");
+    }
+
+    @AfterAll
+    static void tearDown() throws SQLException {
+        connection.createStatement().execute("DROP ALL OBJECTS");
+        connection.close();
+    }
+
+    @Test
+    void shouldUseIndexWhenStreamVotesByTime() throws SQLException {
+        assertUsesIndex("SELECT * FROM vote WHERE local_date_time >= '2020-01-01 00:00:00'");
+    }
+
+    @Test
+    void shouldUseIndexWhenFindCurrentAmountByRank() throws SQLException {
+        assertUsesIndex("SELECT MAX(amount) FROM trade WHERE rank = 1");
+    }
+
+    @Test
+    void shouldUseIndexWhenFindCurrentAmountByKeywordAndRank() throws SQLException {
+        assertUsesIndex("SELECT MAX(amount) FROM trade WHERE keyword = 'k' AND rank = 1");
+    }
+
+    @Test
+    void shouldUseIndexWhenFindRsEventsByKeyword() throws SQLException {
+        assertUsesIndex("SELECT * FROM rs_event WHERE keyword = 'k'");
+    }
+
+    @Test
+    void shouldUseIndexWhenFindVotesByUserIdAndRsEventId() throws SQLException {
+        assertUsesIndex("SELECT * FROM vote WHERE user_id = 1 AND rs_event_id = 1");
+    }
+
+    @Test
+    void shouldUseIndexWhenFindRsEventsByUserId() throws SQLException {
+        assertUsesIndex("SELECT * FROM rs_event WHERE user_id = 1");
+    }
+
+    @Test
+    void shouldUseIndexWhenFindTradesByRsEventId() throws SQLException {
+        assertUsesIndex("SELECT * FROM trade WHERE rs_event_id = 1");
+    }
+
+    private void assertUsesIndex(String sql) throws SQLException {
+        String plan = explain(sql);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    private String explain(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("EXPLAIN " + sql)) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.AuditAction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditRingBufferTest {
+
+    @Test
+    void shouldDropAndCountRecordsWhenFull() {
+        AuditRingBuffer ringBuffer = new AuditRingBuffer(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(publish(ringBuffer, i));
+        }
+        assertFalse(publish(ringBuffer, 4));
+        assertEquals(1, ringBuffer.getDropped());
+
+        List<Object[]> batch = new ArrayList<>();
+        assertEquals(4, ringBuffer.drainTo(batch, 10));
+        assertEquals(0, batch.get(0)[2]);
+        assertEquals(3, batch.get(3)[2]);
+        assertTrue(ringBuffer.isEmpty());
+
+        assertTrue(publish(ringBuffer, 5));
+    }
+
+    @Test
+    void shouldDeliverEveryPublishedRecordExactlyOnceWithConcurrentProducers() throws Exception {
+        AuditRingBuffer ringBuffer = new AuditRingBuffer(1024);
+        int producers = 4;
+        int perProducer = 50000;
+        AtomicLong accepted = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(producers);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            executor.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    if (publish(ringBuffer, base + i)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        List<Object[]> batch = new ArrayList<>();
+        while (done.getCount() > 0 || !ringBuffer.isEmpty()) {
+            ringBuffer.drainTo(batch, 100);
+            for (Object[] row : batch) {
+                assertTrue(seen.add((Integer) row[2]));
+            }
+            batch.clear();
+        }
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        assertEquals(accepted.get(), seen.size());
+        assertEquals((long) producers * perProducer, accepted.get() + ringBuffer.getDropped());
+    }
+
+    private boolean publish(AuditRingBuffer ringBuffer, int rsEventId) {
+        return ringBuffer.tryPublish(AuditAction.VOTE, 1, rsEventId, 1, true, null, 1000, 0);
+    }
+}
@@ -0,0 +1,94 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.RsListApplication;
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.repository.ChangeLogRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChangeLogPollerTest {
+
+    ConfigurableApplicationContext node1;
+
+    ConfigurableApplicationContext node2;
+
+    @BeforeEach
+    void setUp() {
+        String url = "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        node1 = new SpringApplicationBuilder(RsListApplication.class).web(WebApplicationType.NONE).run(url);
+        node2 = new SpringApplicationBuilder(RsListApplication.class).web(WebApplicationType.NONE).run(url);
+    }
+
+    @AfterEach
+    void tearDown() {
+        node1.close();
+        node2.close();
+    }
+
+    @Test
+    void shouldSeeRsEventAddedOnAnotherNode() throws InterruptedException {
+        UserDto userDto = node1.getBean(UserRepository.class).save(UserDto.builder()
+                .voteNum(10)
+                .phone("18888888888")
+                .gender("female")
+                .email("a@b.com")
+                .age(19)
+                .userName("idolice")
+                .build());
+
+        node1.getBean(RsService.class).addRsEvent(RsEvent.builder()
+                .eventName("猪肉涨价了")
+                .keyword("经济")
+                .userId(userDto.getId())
+                .build());
+
+        assertEquals(awaitSearchResult(node2, "经济").size(), 1);
+        assertEquals(node1.getBean(ChangeLogRepository.class).findAll().size(), 1);
+    }
+
+    @Test
+    void shouldCountAbandonedGapsAndAskForResync() throws InterruptedException {
+        node2.getBean(ChangeLogPoller.class).gapTimeoutMillis = 0;
+        node1.getBean(JdbcTemplate.class).update("INSERT INTO change_log "
+                + "(id, node_id, type, rs_event_id, amount, occurred_at, created_at) "
+                + "VALUES (5, 'another-node', 'VOTE', 1, 1, NOW(), NOW())");
+
+        Counter abandoned = node2.getBean(MeterRegistry.class).counter("rs.change-log.abandoned-ids");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (abandoned.count() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(4, abandoned.count());
+    }
+
+    private Set<Integer> awaitSearchResult(ConfigurableApplicationContext node, String query)
+            throws InterruptedException {
+        RsEventSearchIndex rsEventSearchIndex = node.getBean(RsEventSearchIndex.class);
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (System.currentTimeMillis() < deadline) {
+            Set<Integer> result = rsEventSearchIndex.search(query);
+            if (!result.isEmpty()) {
+                return result;
+            }
+            Thread.sleep(20);
+        }
+        return Collections.emptySet();
+    }
+}
@@ -0,0 +1,56 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@DirtiesContext
+class ConnectionPoolMonitorTest {
+
+    @Autowired
+    ConnectionPoolMonitor connectionPoolMonitor;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    UserService userService;
+
+    @Test
+    void shouldRecordHoldTimeAgainstTheBorrowingMethod() {
+        userService.register(new User("idolice", "female", 19, "a@b.com", "18888888888"));
+
+        assertNotNull(meterRegistry.find("rs.connection.hold").tag("method", "UserService.register").timer());
+        assertNotNull(meterRegistry.find("hikaricp.connections.acquire").timer());
+    }
+
+    @Test
+    void shouldCountAHeldConnectionOnceAgainstItsHolder() throws SQLException {
+        String holder = "ConnectionPoolMonitorTest.shouldCountAHeldConnectionOnceAgainstItsHolder";
+
+        try (Connection ignored = dataSource.getConnection()) {
+            connectionPoolMonitor.checkLeaks(System.nanoTime());
+            assertNull(meterRegistry.find("rs.connection.leaks").tag("method", holder).counter());
+
+            connectionPoolMonitor.checkLeaks(System.nanoTime() + connectionPoolMonitor.leakThresholdNanos);
+            connectionPoolMonitor.checkLeaks(System.nanoTime() + 2 * connectionPoolMonitor.leakThresholdNanos);
+        }
+
+        assertEquals(1, meterRegistry.get("rs.connection.leaks").tag("method", holder).counter().count());
+    }
+}
@@ -0,0 +1,64 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.service.ConnectionPoolMonitor.Window;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConnectionPoolSizerTest {
+
+    HikariDataSource dataSource;
+    WriteExecutor writeExecutor;
+    ConnectionPoolSizer connectionPoolSizer;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(8);
+        writeExecutor = new WriteExecutor(8, 10, 5000, 10, 5000);
+        connectionPoolSizer = new ConnectionPoolSizer(dataSource, null, writeExecutor, true, 4, 9, 5, 0.5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writeExecutor.stop();
+    }
+
+    @Test
+    void shouldGrowUpToMaxSizeWhileBorrowersWait() {
+        assertEquals(9, connectionPoolSizer.adjust(window(20, 10, 8)));
+        assertEquals(9, connectionPoolSizer.adjust(window(20, 10, 9)));
+
+        assertEquals(9, dataSource.getMaximumPoolSize());
+        assertEquals(9, writeExecutor.executor.getMaximumPoolSize());
+    }
+
+    @Test
+    void shouldShrinkWhenWaitsComeFromASlowDatabase() {
+        assertEquals(9, connectionPoolSizer.adjust(window(20, 10, 8)));
+        assertEquals(7, connectionPoolSizer.adjust(window(20, 40, 9)));
+        assertEquals(6, connectionPoolSizer.adjust(window(20, 40, 7)));
+        assertEquals(5, connectionPoolSizer.adjust(window(20, 40, 6)));
+        assertEquals(4, connectionPoolSizer.adjust(window(20, 40, 5)));
+        assertEquals(4, connectionPoolSizer.adjust(window(20, 40, 4)));
+
+        assertEquals(4, writeExecutor.executor.getCorePoolSize());
+    }
+
+    @Test
+    void shouldShrinkByOneWhileConnectionsStayUnused() {
+        assertEquals(7, connectionPoolSizer.adjust(window(1, 10, 3)));
+        assertEquals(7, connectionPoolSizer.adjust(window(1, 10, 6)));
+        assertEquals(7, connectionPoolSizer.adjust(new Window(0, 0, 0, 0, 0, 0)));
+    }
+
+    private Window window(long averageWaitMillis, long averageHoldMillis, int peakActive) {
+        return new Window(100, TimeUnit.MILLISECONDS.toNanos(averageWaitMillis) * 100,
+                100, averageHoldMillis * 100, 0, peakActive);
+    }
+}
@@ -0,0 +1,63 @@
+package com.thoughtworks.rslist.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountingBloomFilterTest {
+
+    @Test
+    void shouldContainEveryAddedId() {
+        CountingBloomFilter filter = new CountingBloomFilter(10000, 0.01, 1 << 20);
+
+        for (int id = 1; id <= 10000; id++) {
+            filter.add(id);
+        }
+
+        for (int id = 1; id <= 10000; id++) {
+            assertTrue(filter.mightContain(id));
+        }
+    }
+
+    @Test
+    void shouldKeepFalsePositiveRateNearConfiguredRate() {
+        CountingBloomFilter filter = new CountingBloomFilter(10000, 0.01, 1 << 20);
+        for (int id = 1; id <= 10000; id++) {
+            filter.add(id);
+        }
+
+        int falsePositives = 0;
+        for (int id = 10001; id <= 110000; id++) {
+            if (filter.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 2000, falsePositives + " false positives in 100000");
+    }
+
+    @Test
+    void shouldForgetRemovedIdAndKeepOthers() {
+        CountingBloomFilter filter = new CountingBloomFilter(1000, 0.001, 1 << 20);
+        for (int id = 1; id <= 1000; id++) {
+            filter.add(id);
+        }
+
+        filter.remove(500);
+
+        assertFalse(filter.mightContain(500));
+        for (int id = 1; id <= 1000; id++) {
+            if (id != 500) {
+                assertTrue(filter.mightContain(id));
+            }
+        }
+    }
+
+    @Test
+    void shouldStayWithinMemoryBudget() {
+        CountingBloomFilter filter = new CountingBloomFilter(1000000, 0.01, 1 << 16);
+
+        assertTrue(filter.getMemoryBytes() <= 1 << 16);
+    }
+}
@@ -0,0 +1,63 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.event.ChangeLogResyncEvent;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IdExistenceFilterTest {
+
+    UserRepository userRepository;
+    RsEventRepository rsEventRepository;
+    ChangeLogPoller changeLogPoller;
+    IdExistenceFilter idExistenceFilter;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        rsEventRepository = mock(RsEventRepository.class);
+        changeLogPoller = mock(ChangeLogPoller.class);
+        when(userRepository.findAllIds()).thenReturn(Arrays.asList(1, 4));
+        when(rsEventRepository.findAllIds()).thenReturn(Arrays.asList(2, 6));
+        idExistenceFilter = new IdExistenceFilter(userRepository, rsEventRepository, changeLogPoller,
+                1000, 0.01, 1 << 16, 0);
+        idExistenceFilter.load();
+    }
+
+    @Test
+    void shouldTrustMissesOnlyOnceThePollerHasCaughtUp() {
+        idExistenceFilter.checkpoint();
+        assertFalse(idExistenceFilter.trustsMiss(3));
+
+        when(changeLogPoller.caughtUpSince(anyLong())).thenReturn(true);
+        idExistenceFilter.checkpoint();
+
+        assertFalse(idExistenceFilter.mightContainUser(3));
+        assertTrue(idExistenceFilter.trustsMiss(3));
+        assertTrue(idExistenceFilter.trustsMiss(6));
+        assertFalse(idExistenceFilter.trustsMiss(7));
+    }
+
+    @Test
+    void shouldConfirmIdsMissedBehindAnAbandonedGap() {
+        when(changeLogPoller.caughtUpSince(anyLong())).thenReturn(true);
+        idExistenceFilter.checkpoint();
+        when(userRepository.findAllIds()).thenReturn(Arrays.asList(1, 3, 4));
+        when(rsEventRepository.findAllIds()).thenReturn(Collections.singletonList(2));
+
+        idExistenceFilter.onChangeLogResync(new ChangeLogResyncEvent(1));
+
+        assertTrue(idExistenceFilter.mightContainUser(3));
+        assertTrue(idExistenceFilter.mightContainRsEvent(6));
+    }
+}
@@ -0,0 +1,69 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RankHistoryStoreTest {
+
+    static final long MINUTE = Duration.ofMinutes(1).toMillis();
+    static final long HOUR = Duration.ofHours(1).toMillis();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReturnRankOverTimeWithinRange() throws Exception {
+        RankHistoryStore store = new RankHistoryStore(directory, Duration.ofHours(1));
+        store.append(10 * MINUTE, ranking(1, 2));
+        store.append(50 * MINUTE, ranking(2, 1));
+        store.append(HOUR + 10 * MINUTE, ranking(1, 2));
+
+        List<long[]> history = store.history(1, 0, 2 * HOUR);
+
+        assertEquals(3, history.size());
+        assertArrayEquals(new long[]{10 * MINUTE, 1, 20}, history.get(0));
+        assertArrayEquals(new long[]{50 * MINUTE, 2, 20}, history.get(1));
+        assertArrayEquals(new long[]{HOUR + 10 * MINUTE, 1, 20}, history.get(2));
+
+        assertEquals(1, store.history(1, 40 * MINUTE, HOUR).size());
+        assertEquals(0, store.history(3, 0, 2 * HOUR).size());
+    }
+
+    @Test
+    void shouldDownsampleOldSegmentsAndDropExpiredOnes() throws Exception {
+        RankHistoryStore store = new RankHistoryStore(directory, Duration.ofHours(1));
+        for (long minute = 0; minute < 3 * 60; minute += 10) {
+            store.append(minute * MINUTE, ranking(1, 2));
+        }
+
+        store.maintain(4 * HOUR, Duration.ofHours(3), Duration.ofHours(2),
+                Duration.ofMinutes(30));
+
+        List<long[]> history = store.history(1, 0, 3 * HOUR);
+        assertEquals(2 + 6, history.size());
+        assertEquals(HOUR, history.get(0)[0]);
+        assertEquals(HOUR + 30 * MINUTE, history.get(1)[0]);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    private List<RsEvent> ranking(int... ids) {
+        RsEvent[] ranking = new RsEvent[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            ranking[i] = RsEvent.builder().id(ids[i]).voteNum(ids[i] == 1 ? 20 : 10).build();
+        }
+        return Arrays.asList(ranking);
+    }
+}
@@ -0,0 +1,70 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RankSnapshotCodecTest {
+
+    @Test
+    void shouldFindRankAndVotesOfEveryEvent() {
+        Random random = new Random(20200601L);
+        List<RsEvent> ranking = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ranking.add(RsEvent.builder().id(1 + random.nextInt(100000)).voteNum(random.nextInt(5000)).build());
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(RankSnapshotCodec.encode(42L, ranking));
+
+        assertEquals(42L, RankSnapshotCodec.timestamp(buffer, 0));
+        for (int i = ranking.size() - 1; i >= 0; i--) {
+            RsEvent rsEvent = ranking.get(i);
+            int firstRank = firstRank(ranking, rsEvent.getId());
+            assertArrayEquals(new int[]{firstRank, ranking.get(firstRank - 1).getVoteNum()},
+                    RankSnapshotCodec.find(buffer, 0, rsEvent.getId()));
+        }
+    }
+
+    @Test
+    void shouldReturnNullForMissingEvent() {
+        List<RsEvent> ranking = Arrays.asList(
+                RsEvent.builder().id(5).voteNum(1).build(),
+                RsEvent.builder().id(9).voteNum(0).build());
+        ByteBuffer buffer = ByteBuffer.wrap(RankSnapshotCodec.encode(0L, ranking));
+
+        assertNull(RankSnapshotCodec.find(buffer, 0, 1));
+        assertNull(RankSnapshotCodec.find(buffer, 0, 7));
+        assertNull(RankSnapshotCodec.find(buffer, 0, 10));
+    }
+
+    @Test
+    void shouldStoreDenseIdsInAFewBytesPerEvent() {
+        List<RsEvent> ranking = new ArrayList<>();
+        for (int id = 1; id <= 10000; id++) {
+            ranking.add(RsEvent.builder().id(id).voteNum(id % 100).build());
+        }
+
+        byte[] encoded = RankSnapshotCodec.encode(0L, ranking);
+
+        assertTrue(encoded.length < RankSnapshotCodec.HEADER_BYTES + 10000 * 5, encoded.length + " bytes");
+    }
+
+    private int firstRank(List<RsEvent> ranking, int id) {
+        for (int i = 0; i < ranking.size(); i++) {
+            if (ranking.get(i).getId() == id) {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException();
+    }
+}
@@ -0,0 +1,130 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.ChangeType;
+import com.thoughtworks.rslist.domain.RankingChange;
+import com.thoughtworks.rslist.domain.RankingChanges;
+import com.thoughtworks.rslist.domain.RankingOrder;
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.event.RsEventChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class RankingChangeFeedTest {
+
+    @Mock
+    RsService rsService;
+
+    RankingChangeFeed rankingChangeFeed;
+
+    @BeforeEach
+    void setUp() {
+        initMocks(this);
+        when(rsService.getPaidSlots()).thenReturn(PaidSlots.NONE);
+        rankingChangeFeed = new RankingChangeFeed(rsService, 4);
+    }
+
+    @Test
+    void shouldReportOnlyEventsWhoseRankOrVotesChanged() {
+        rankWith(Arrays.asList(rsEvent(1, 5), rsEvent(2, 3), rsEvent(3, 1)),
+                Arrays.asList(rsEvent(2, 6), rsEvent(1, 5), rsEvent(3, 1)));
+
+        rankingChangeFeed.start();
+        markDirty();
+        RankingChanges changes = rankingChangeFeed.getChangesSince(rankingChangeFeed.epoch, 0);
+
+        assertFalse(changes.isResync());
+        assertEquals(2, changes.getVersion());
+        assertIterableEquals(Arrays.asList(2, 1), ids(changes.getChanges()));
+        assertEquals(1, changes.getChanges().get(0).getRank());
+        assertEquals(6, changes.getChanges().get(0).getRsEvent().getVoteNum());
+        assertEquals(Collections.emptyList(), rankingChangeFeed.getChangesSince(rankingChangeFeed.epoch, 2).getChanges());
+    }
+
+    @Test
+    void shouldRecomputeOnlyAfterAWrite() {
+        rankWith(Collections.singletonList(rsEvent(1, 5)));
+
+        rankingChangeFeed.start();
+        rankingChangeFeed.getChangesSince(rankingChangeFeed.epoch, 0);
+        rankingChangeFeed.getChangesSince(rankingChangeFeed.epoch, 0);
+
+        verify(rsService, times(1)).getTopRsEvents(anyInt(), eq(RankingOrder.VOTES), any());
+    }
+
+    @Test
+    void shouldReportRemovedEvents() {
+        rankWith(Arrays.asList(rsEvent(1, 5), rsEvent(2, 3)),
+                Collections.singletonList(rsEvent(1, 5)));
+
+        rankingChangeFeed.start();
+        markDirty();
+        List<RankingChange> changes = rankingChangeFeed.getChangesSince(rankingChangeFeed.epoch, 0).getChanges();
+
+        assertEquals(1, changes.size());
+        assertEquals(2, changes.get(0).getRsEventId());
+        assertTrue(changes.get(0).isRemoved());
+    }
+
+    @Test
+    void shouldAskForResyncWhenVersionWasOverwritten() {
+        rankWith(Collections.emptyList(),
+                Arrays.asList(rsEvent(1, 5), rsEvent(2, 4), rsEvent(3, 3), rsEvent(4, 2), rsEvent(5, 1)));
+
+        rankingChangeFeed.start();
+        markDirty();
+
+        assertTrue(rankingChangeFeed.getChangesSince(rankingChangeFeed.epoch, 0).isResync());
+        assertFalse(rankingChangeFeed.getChangesSince(rankingChangeFeed.epoch, 1).isResync());
+        assertEquals(4, rankingChangeFeed.getChangesSince(rankingChangeFeed.epoch, 1).getChanges().size());
+        assertTrue(rankingChangeFeed.getChangesSince(rankingChangeFeed.epoch, 6).isResync());
+    }
+
+    @Test
+    void shouldAskForResyncWhenEpochDiffers() {
+        rankWith(Collections.singletonList(rsEvent(1, 5)), Collections.singletonList(rsEvent(1, 6)));
+
+        rankingChangeFeed.start();
+        markDirty();
+
+        RankingChanges changes = rankingChangeFeed.getChangesSince("another-node", 0);
+        assertTrue(changes.isResync());
+        assertEquals(rankingChangeFeed.epoch, changes.getEpoch());
+        assertTrue(rankingChangeFeed.getChangesSince(null, 0).isResync());
+        assertEquals(1, rankingChangeFeed.getChangesSince(changes.getEpoch(), 0).getChanges().size());
+    }
+
+    @SafeVarargs
+    private final void rankWith(List<RsEvent> first, List<RsEvent>... next) {
+        when(rsService.getTopRsEvents(anyInt(), eq(RankingOrder.VOTES), any())).thenReturn(first, next);
+    }
+
+    private void markDirty() {
+        rankingChangeFeed.onRsEventChanged(RsEventChangedEvent.builder().type(ChangeType.VOTE).build());
+    }
+
+    private RsEvent rsEvent(int id, int voteNum) {
+        return RsEvent.builder().id(id).voteNum(voteNum).build();
+    }
+
+    private List<Integer> ids(List<RankingChange> changes) {
+        return changes.stream().map(RankingChange::getRsEventId).collect(Collectors.toList());
+    }
+}
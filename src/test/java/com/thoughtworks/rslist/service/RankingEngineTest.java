@@ -0,0 +1,153 @@
+package com.thoughtworks.rslist.service;
+
+import com.sun.management.ThreadMXBean;
+import com.thoughtworks.rslist.domain.RsEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class RankingEngineTest {
+
+    RankingEngine rankingEngine;
+
+    @BeforeEach
+    void setUp() {
+        rankingEngine = new RankingEngine();
+    }
+
+    @Test
+    void shouldPlacePaidRsEventsOnTheirRanks() {
+        List<RsEvent> rsEventList = Arrays.asList(
+                RsEvent.builder().id(1).voteNum(1).build(),
+                RsEvent.builder().id(2).voteNum(2).build(),
+                RsEvent.builder().id(3).voteNum(3).build(),
+                RsEvent.builder().id(4).voteNum(4).build());
+        Map<Integer, Integer> rankRsEventIdMap = new HashMap<>();
+        rankRsEventIdMap.put(1, 2);
+        rankRsEventIdMap.put(3, 3);
+
+        assertIterableEquals(ids(rankingEngine.rank(rsEventList, rankRsEventIdMap, Integer.MAX_VALUE)),
+                Arrays.asList(2, 4, 3, 1));
+        assertIterableEquals(ids(rankingEngine.rank(rsEventList, rankRsEventIdMap, 2)),
+                Arrays.asList(2, 4));
+    }
+
+    @Test
+    void shouldReturnEmptyListWhenLimitIsZero() {
+        List<RsEvent> rsEventList = Arrays.asList(RsEvent.builder().id(1).voteNum(1).build());
+
+        assertEquals(rankingEngine.rank(rsEventList, new HashMap<>(), 0).size(), 0);
+    }
+
+    @Test
+    void shouldMatchFullOrderingForAnyWindow() {
+        Random random = new Random(20200601L);
+
+        for (int round = 0; round < 2000; round++) {
+            int size = random.nextInt(30);
+            List<RsEvent> rsEventList = new ArrayList<>(size);
+            for (int id = 1; id <= size; id++) {
+                rsEventList.add(RsEvent.builder().id(id).voteNum(random.nextInt(8)).build());
+            }
+
+            Map<Integer, Integer> rankRsEventIdMap = new HashMap<>();
+            if (size > 0) {
+                int paidCount = random.nextInt(size / 2 + 1);
+                for (int i = 0; i < paidCount; i++) {
+                    rankRsEventIdMap.put(1 + random.nextInt(size + 3), 1 + random.nextInt(size));
+                }
+            }
+
+            List<RsEvent> expected = fullSort(rsEventList, rankRsEventIdMap);
+            int limit = random.nextInt(size + 3);
+
+            assertIterableEquals(ids(rankingEngine.rank(rsEventList, rankRsEventIdMap, limit)),
+                    ids(expected.subList(0, Math.min(limit, expected.size()))));
+        }
+    }
+
+    @Test
+    void shouldAllocateLittleMoreThanTheResultPerRankedEvent() {
+        ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled());
+
+        Random random = new Random(20200601L);
+        int size = 10000;
+        List<RsEvent> rsEventList = new ArrayList<>(size);
+        for (int id = 1; id <= size; id++) {
+            rsEventList.add(RsEvent.builder().id(id).voteNum(random.nextInt(1000)).build());
+        }
+        long[] slots = new long[20];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = PaidSlots.pack(i * 3 + 1, i * 7 + 1);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            rankingEngine.rank(rsEventList, RankingEngine.BY_VOTE_NUM_DESC,
+                    new PaidSlots(slots.clone(), slots.length), Integer.MAX_VALUE);
+        }
+
+        int rounds = 100;
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < rounds; i++) {
+            rankingEngine.rank(rsEventList, RankingEngine.BY_VOTE_NUM_DESC,
+                    new PaidSlots(slots.clone(), slots.length), Integer.MAX_VALUE);
+        }
+        double bytesPerEvent = (threadMXBean.getThreadAllocatedBytes(threadId) - before) / (double) rounds / size;
+
+        // the result list and the int[] ordering take about 8 bytes per event
+        assertTrue(bytesPerEvent < 16, "allocated " + bytesPerEvent + " bytes per ranked event");
+    }
+
+    // the ordering RsService produced before partial selection was introduced
+    private List<RsEvent> fullSort(List<RsEvent> rsEventList, Map<Integer, Integer> rankRsEventIdMap) {
+        List<RsEvent> sorted = new ArrayList<>(rsEventList);
+        sorted.sort((a, b) -> b.getVoteNum() - a.getVoteNum());
+
+        int size = sorted.size();
+        Iterator<RsEvent> rsEventIterator = sorted.iterator();
+        List<RsEvent> result = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            int rank = i + 1;
+
+            if (rankRsEventIdMap.containsKey(rank)) {
+                int rsEventId = rankRsEventIdMap.get(rank);
+                result.add(sorted.stream().filter(item -> item.getId() == rsEventId).findFirst().get());
+            } else {
+                addRsEventIfNotExists(result, rsEventIterator.next());
+            }
+        }
+
+        while (rsEventIterator.hasNext()) {
+            addRsEventIfNotExists(result, rsEventIterator.next());
+        }
+
+        return result;
+    }
+
+    private void addRsEventIfNotExists(List<RsEvent> result, RsEvent rsEvent) {
+        if (result.stream().noneMatch(item -> item.getId() == rsEvent.getId())) {
+            result.add(rsEvent);
+        }
+    }
+
+    private List<Integer> ids(List<RsEvent> rsEvents) {
+        return rsEvents.stream().map(RsEvent::getId).collect(Collectors.toList());
+    }
+}
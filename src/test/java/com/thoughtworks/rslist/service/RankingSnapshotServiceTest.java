@@ -0,0 +1,132 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RankingOrder;
+import com.thoughtworks.rslist.domain.RankingSnapshot;
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class RankingSnapshotServiceTest {
+
+    @Mock
+    RsService rsService;
+
+    RankingSnapshotService rankingSnapshotService;
+
+    List<RsEvent> rsEvents = Collections.singletonList(RsEvent.builder().id(1).voteNum(1).build());
+
+    @BeforeEach
+    void setUp() {
+        initMocks(this);
+        rankingSnapshotService = new RankingSnapshotService(rsService, 50, 2, 60000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        rankingSnapshotService.stop();
+    }
+
+    @Test
+    void shouldServeStaleSnapshotWhenLoadExceedsBudget() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(rsService.getAllRsEvents(RankingOrder.VOTES))
+                .thenReturn(rsEvents)
+                .thenAnswer(invocation -> {
+                    release.await();
+                    return Collections.emptyList();
+                });
+
+        assertFalse(rankingSnapshotService.getAllRsEvents(RankingOrder.VOTES).isStale());
+
+        RankingSnapshot snapshot = rankingSnapshotService.getAllRsEvents(RankingOrder.VOTES);
+        assertTrue(snapshot.isStale());
+        assertEquals(rsEvents, snapshot.getRsEvents());
+
+        release.countDown();
+    }
+
+    @Test
+    void shouldRejectWhenFirstLoadExceedsBudget() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(rsService.getAllRsEvents(RankingOrder.VOTES)).thenAnswer(invocation -> {
+            release.await();
+            return rsEvents;
+        });
+
+        assertThrows(ServiceUnavailableException.class,
+                () -> rankingSnapshotService.getAllRsEvents(RankingOrder.VOTES));
+
+        release.countDown();
+    }
+
+    @Test
+    void shouldShareOneLoadBetweenConcurrentRequests() throws Exception {
+        rankingSnapshotService.stop();
+        rankingSnapshotService = new RankingSnapshotService(rsService, 5000, 2, 60000);
+        CountDownLatch release = new CountDownLatch(1);
+        when(rsService.getAllRsEvents(RankingOrder.VOTES)).thenAnswer(invocation -> {
+            release.await();
+            return rsEvents;
+        });
+
+        ExecutorService requests = Executors.newFixedThreadPool(8);
+        Future<?>[] futures = new Future<?>[8];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = requests.submit(() -> rankingSnapshotService.getAllRsEvents(RankingOrder.VOTES));
+        }
+        Thread.sleep(100);
+        release.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        requests.shutdown();
+
+        verify(rsService, times(1)).getAllRsEvents(RankingOrder.VOTES);
+    }
+
+    @Test
+    void shouldStopQueryingDatabaseWhileBreakerIsOpen() {
+        when(rsService.getAllRsEvents(RankingOrder.VOTES))
+                .thenReturn(rsEvents)
+                .thenThrow(new RuntimeException())
+                .thenThrow(new RuntimeException());
+
+        rankingSnapshotService.getAllRsEvents(RankingOrder.VOTES);
+        assertTrue(rankingSnapshotService.getAllRsEvents(RankingOrder.VOTES).isStale());
+        assertTrue(rankingSnapshotService.getAllRsEvents(RankingOrder.VOTES).isStale());
+
+        assertTrue(rankingSnapshotService.isOpen());
+        assertTrue(rankingSnapshotService.getAllRsEvents(RankingOrder.VOTES).isStale());
+        verify(rsService, times(3)).getAllRsEvents(RankingOrder.VOTES);
+    }
+
+    @Test
+    void shouldRejectWhenBreakerIsOpenAndThereIsNoSnapshot() {
+        when(rsService.getAllRsEvents(RankingOrder.TRENDING)).thenThrow(new IllegalStateException());
+
+        assertThrows(IllegalStateException.class, () -> rankingSnapshotService.getAllRsEvents(RankingOrder.TRENDING));
+        assertThrows(IllegalStateException.class, () -> rankingSnapshotService.getAllRsEvents(RankingOrder.TRENDING));
+        assertThrows(ServiceUnavailableException.class,
+                () -> rankingSnapshotService.getAllRsEvents(RankingOrder.TRENDING));
+    }
+}
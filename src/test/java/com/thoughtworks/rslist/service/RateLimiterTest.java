@@ -0,0 +1,46 @@
+package com.thoughtworks.rslist.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void shouldAllowBurstThenReject() {
+        RateLimiter rateLimiter = new RateLimiter(1, 3);
+
+        assertTrue(rateLimiter.tryAcquire("1", 0));
+        assertTrue(rateLimiter.tryAcquire("1", 0));
+        assertTrue(rateLimiter.tryAcquire("1", 0));
+        assertFalse(rateLimiter.tryAcquire("1", 0));
+        assertTrue(rateLimiter.tryAcquire("2", 0));
+    }
+
+    @Test
+    void shouldRefillAtConfiguredRate() {
+        RateLimiter rateLimiter = new RateLimiter(2, 1);
+
+        assertTrue(rateLimiter.tryAcquire("1", 0));
+        assertFalse(rateLimiter.tryAcquire("1", SECOND / 4));
+        assertTrue(rateLimiter.tryAcquire("1", SECOND / 2));
+        assertFalse(rateLimiter.tryAcquire("1", SECOND / 2));
+    }
+
+    @Test
+    void shouldEvictOnlyIdleBuckets() {
+        RateLimiter rateLimiter = new RateLimiter(1, 2);
+
+        rateLimiter.tryAcquire("idle", 0);
+        rateLimiter.tryAcquire("busy", 5 * SECOND);
+        rateLimiter.evictIdleBuckets(2 * SECOND);
+
+        assertEquals(rateLimiter.size(), 1);
+    }
+}
@@ -0,0 +1,103 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.RsEventDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RsEventSearchIndexTest {
+
+    RsEventSearchIndex rsEventSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        rsEventSearchIndex = new RsEventSearchIndex();
+        rsEventSearchIndex.add(RsEventDto.builder().id(1).eventName("Pork price rises").keyword("economy").build());
+        rsEventSearchIndex.add(RsEventDto.builder().id(2).eventName("Stock market falls").keyword("economy").build());
+        rsEventSearchIndex.add(RsEventDto.builder().id(3).eventName("猪肉涨价了").keyword("经济").build());
+    }
+
+    @Test
+    void shouldFindByKeywordAndEventName() {
+        assertEquals(rsEventSearchIndex.search("economy"), new HashSet<>(Arrays.asList(1, 2)));
+        assertEquals(rsEventSearchIndex.search("market"), Collections.singleton(2));
+        assertEquals(rsEventSearchIndex.search("经济"), Collections.singleton(3));
+    }
+
+    @Test
+    void shouldFindByPrefixIgnoringCase() {
+        assertEquals(rsEventSearchIndex.search("POR"), Collections.singleton(1));
+        assertEquals(rsEventSearchIndex.search("猪肉"), Collections.singleton(3));
+    }
+
+    @Test
+    void shouldRequireEveryQueryToken() {
+        assertEquals(rsEventSearchIndex.search("econ pork"), Collections.singleton(1));
+        assertEquals(rsEventSearchIndex.search("econ 经济"), Collections.emptySet());
+        assertEquals(rsEventSearchIndex.search(" "), Collections.emptySet());
+    }
+
+    @Test
+    void shouldNotFindRemovedRsEvent() {
+        rsEventSearchIndex.remove(1);
+
+        assertEquals(rsEventSearchIndex.search("economy"), Collections.singleton(2));
+        assertEquals(rsEventSearchIndex.search("pork"), Collections.emptySet());
+    }
+
+    @Test
+    void shouldStayCompactAndFastAtAMillionEvents() {
+        Random random = new Random(20200601L);
+        String[] words = new String[20000];
+        for (int i = 0; i < words.length; i++) {
+            char[] word = new char[4 + random.nextInt(6)];
+            for (int j = 0; j < word.length; j++) {
+                word[j] = (char) ('a' + random.nextInt(26));
+            }
+            words[i] = new String(word);
+        }
+
+        MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long before = memoryMXBean.getHeapMemoryUsage().getUsed();
+
+        RsEventSearchIndex index = new RsEventSearchIndex();
+        int size = 1000000;
+        for (int id = 1; id <= size; id++) {
+            index.add(RsEventDto.builder()
+                    .id(id)
+                    .eventName(words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                            + " " + words[random.nextInt(words.length)])
+                    .keyword("k" + random.nextInt(100))
+                    .build());
+        }
+
+        System.gc();
+        double bytesPerEvent = (memoryMXBean.getHeapMemoryUsage().getUsed() - before) / (double) size;
+
+        for (int i = 0; i < 10000; i++) {
+            index.search(words[random.nextInt(words.length)]);
+        }
+        int lookups = 10000;
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            index.search(words[random.nextInt(words.length)]);
+        }
+        long nanosPerLookup = (System.nanoTime() - startedAt) / lookups;
+
+        // about 330 bytes and 30 microseconds on a developer machine; every event keeps
+        // four postings and its token array
+        assertTrue(bytesPerEvent < 512, "retained " + bytesPerEvent + " bytes per indexed event");
+        assertTrue(nanosPerLookup < TimeUnit.MILLISECONDS.toNanos(1), "took " + nanosPerLookup + " ns per lookup");
+    }
+}
@@ -1,5 +1,7 @@
 package com.thoughtworks.rslist.service;
 
+import com.thoughtworks.rslist.domain.ChangeType;
+import com.thoughtworks.rslist.domain.RankingOrder;
 import com.thoughtworks.rslist.domain.RsEvent;
 import com.thoughtworks.rslist.domain.Trade;
 import com.thoughtworks.rslist.domain.Vote;
@@ -8,12 +10,14 @@ import com.thoughtworks.rslist.dto.TradeDto;
 import com.thoughtworks.rslist.dto.UserDto;
 import com.thoughtworks.rslist.dto.VoteDto;
 import com.thoughtworks.rslist.exception.AmountNotEnoughException;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
 import com.thoughtworks.rslist.repository.RsEventRepository;
 import com.thoughtworks.rslist.repository.TradeRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
 import com.thoughtworks.rslist.repository.VoteRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.springframework.http.MediaType;
 
@@ -23,9 +27,13 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -48,6 +56,18 @@ class RsServiceTest {
     @Mock
     TradeRepository tradeRepository;
 
+    @Mock
+    RsEventSearchIndex rsEventSearchIndex;
+
+    @Mock
+    ChangeLogService changeLogService;
+
+    @Mock
+    TrendingScoreBoard trendingScoreBoard;
+
+    @Mock
+    IdExistenceFilter idExistenceFilter;
+
     LocalDateTime localDateTime;
 
     Vote vote;
@@ -55,7 +75,10 @@ class RsServiceTest {
     @BeforeEach
     void setUp() {
         initMocks(this);
-        rsService = new RsService(rsEventRepository, userRepository, voteRepository, tradeRepository);
+        rsService = new RsService(rsEventRepository, userRepository, voteRepository, tradeRepository,
+                rsEventSearchIndex, changeLogService, trendingScoreBoard, idExistenceFilter);
+        when(idExistenceFilter.mightContainUser(anyInt())).thenReturn(true);
+        when(idExistenceFilter.mightContainRsEvent(anyInt())).thenReturn(true);
         localDateTime = LocalDateTime.now();
         vote = Vote.builder().voteNum(2).rsEventId(1).time(localDateTime).userId(1).build();
     }
@@ -98,6 +121,23 @@ class RsServiceTest {
                                 .build());
         verify(userRepository).save(userDto);
         verify(rsEventRepository).save(rsEventDto);
+        verify(changeLogService).record(ChangeType.VOTE, 1, 2, localDateTime);
+    }
+
+    @Test
+    void shouldStampAnUntimedVoteWithTheServerTime() {
+        UserDto userDto = UserDto.builder().voteNum(5).id(2).build();
+        RsEventDto rsEventDto = RsEventDto.builder().id(1).voteNum(2).user(userDto).build();
+        when(rsEventRepository.findById(anyInt())).thenReturn(Optional.of(rsEventDto));
+        when(userRepository.findById(anyInt())).thenReturn(Optional.of(userDto));
+
+        rsService.vote(Vote.builder().userId(2).voteNum(2).build(), 1);
+
+        ArgumentCaptor<VoteDto> voteDtoCaptor = ArgumentCaptor.forClass(VoteDto.class);
+        verify(voteRepository).save(voteDtoCaptor.capture());
+        LocalDateTime stamped = voteDtoCaptor.getValue().getLocalDateTime();
+        assertTrue(stamped != null && !stamped.isAfter(LocalDateTime.now()));
+        verify(changeLogService).record(ChangeType.VOTE, 1, 2, stamped);
     }
 
     @Test
@@ -113,6 +153,31 @@ class RsServiceTest {
                 });
     }
 
+    @Test
+    void shouldVoteForRsEventMissingFromFilterAndAddItToFilter() {
+        UserDto userDto = UserDto.builder().voteNum(5).id(2).build();
+        RsEventDto rsEventDto = RsEventDto.builder().id(1).voteNum(2).user(userDto).build();
+        when(idExistenceFilter.mightContainRsEvent(1)).thenReturn(false);
+        when(rsEventRepository.findById(1)).thenReturn(Optional.of(rsEventDto));
+        when(userRepository.findById(anyInt())).thenReturn(Optional.of(userDto));
+
+        rsService.vote(vote, 1);
+
+        verify(idExistenceFilter).confirmRsEvent(1);
+        verify(idExistenceFilter, never()).confirmUser(anyInt());
+        verify(changeLogService).record(ChangeType.VOTE, 1, 2, localDateTime);
+    }
+
+    @Test
+    void shouldRejectVoteForRsEventFilterIsSureAboutWithoutQueryingDatabase() {
+        when(idExistenceFilter.mightContainRsEvent(1)).thenReturn(false);
+        when(idExistenceFilter.trustsMiss(1)).thenReturn(true);
+
+        assertThrows(RuntimeException.class, () -> rsService.vote(vote, 1));
+
+        verify(rsEventRepository, never()).findById(anyInt());
+    }
+
     @Test
     void shouldBuySuccess() {
         int rankToBuy = 1;
@@ -120,20 +185,21 @@ class RsServiceTest {
         int amount = 101;
         int rsEventId = 1;
 
-        when(tradeRepository.findCurrentAmountByRank(rankToBuy)).thenReturn(Optional.of(currentAmount));
+        when(tradeRepository.findCurrentAmountByKeywordAndRank("", rankToBuy)).thenReturn(Optional.of(currentAmount));
 
         rsService.buy(Trade.builder()
                 .amount(amount)
                 .rank(rankToBuy)
                 .build(), rsEventId);
 
-        verify(tradeRepository).save(TradeDto.builder()
-                .rank(rankToBuy)
-                .amount(amount)
-                .rsEventDto(RsEventDto.builder()
-                        .id(rsEventId)
-                        .build())
-                .build());
+        ArgumentCaptor<TradeDto> tradeDtoCaptor = ArgumentCaptor.forClass(TradeDto.class);
+        verify(tradeRepository).save(tradeDtoCaptor.capture());
+
+        TradeDto saved = tradeDtoCaptor.getValue();
+        assertEquals(rankToBuy, saved.getRank());
+        assertEquals(amount, saved.getAmount());
+        assertEquals(rsEventId, saved.getRsEventDto().getId());
+        assertTrue(saved.getExpiresAt().isAfter(LocalDateTime.now().plusHours(23)));
     }
 
     @Test
@@ -143,7 +209,7 @@ class RsServiceTest {
         int amount = 90;
         int rsEventId = 1;
 
-        when(tradeRepository.findCurrentAmountByRank(rankToBuy)).thenReturn(Optional.of(currentAmount));
+        when(tradeRepository.findCurrentAmountByKeywordAndRank("", rankToBuy)).thenReturn(Optional.of(currentAmount));
 
         assertThrows(AmountNotEnoughException.class, () -> {
             rsService.buy(Trade.builder()
@@ -153,9 +219,80 @@ class RsServiceTest {
         });
     }
 
+    @Test
+    void shouldBuyRankOnKeywordBoard() {
+        when(rsEventRepository.findById(1)).thenReturn(Optional.of(RsEventDto.builder()
+                .id(1)
+                .keyword("sports")
+                .build()));
+        when(tradeRepository.findCurrentAmountByKeywordAndRank("sports", 1)).thenReturn(Optional.empty());
+
+        rsService.buy(Trade.builder()
+                .amount(10)
+                .rank(1)
+                .keyword("sports")
+                .build(), 1);
+
+        ArgumentCaptor<TradeDto> tradeDtoCaptor = ArgumentCaptor.forClass(TradeDto.class);
+        verify(tradeRepository).save(tradeDtoCaptor.capture());
+        assertEquals("sports", tradeDtoCaptor.getValue().getKeyword());
+    }
+
+    @Test
+    void shouldBuyFailWhenRsEventNotOnKeywordBoard() {
+        when(rsEventRepository.findById(1)).thenReturn(Optional.of(RsEventDto.builder()
+                .id(1)
+                .keyword("music")
+                .build()));
+
+        assertThrows(RequestNotValidException.class, () -> rsService.buy(Trade.builder()
+                .amount(10)
+                .rank(1)
+                .keyword("sports")
+                .build(), 1));
+
+        verify(tradeRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldGetKeywordRsEventList() {
+        when(tradeRepository.findAllByKeyword("sports")).thenReturn(Arrays.asList(
+                TradeDto.builder()
+                        .rank(1)
+                        .amount(100)
+                        .keyword("sports")
+                        .rsEventDto(RsEventDto.builder()
+                                .id(1)
+                                .build())
+                        .build()
+        ));
+
+        when(rsEventRepository.findAllByKeyword("sports")).thenReturn(Arrays.asList(
+                RsEventDto.builder()
+                        .id(1)
+                        .keyword("sports")
+                        .voteNum(1)
+                        .build(),
+
+                RsEventDto.builder()
+                        .id(3)
+                        .keyword("sports")
+                        .voteNum(3)
+                        .build()
+        ));
+
+        List<RsEvent> rsEvents = rsService.getKeywordRsEvents("sports", RankingOrder.VOTES);
+
+        assertIterableEquals(
+                rsEvents.stream().map(RsEvent::getId).collect(Collectors.toList()),
+                Arrays.asList(1, 3)
+        );
+        verify(rsEventRepository, never()).findAll();
+    }
+
     @Test
     void shouldGetSortedRsEventList() {
-        when(tradeRepository.findAll()).thenReturn(Arrays.asList(
+        when(tradeRepository.findAllByKeyword("")).thenReturn(Arrays.asList(
                 TradeDto.builder()
                         .rank(1)
                         .amount(100)
@@ -210,4 +347,41 @@ class RsServiceTest {
                 Arrays.asList(2, 4, 3, 1)
         );
     }
+
+    @Test
+    void shouldGetRsEventsBetween() {
+        when(tradeRepository.findAllByKeyword("")).thenReturn(Arrays.asList(
+                TradeDto.builder()
+                        .rank(2)
+                        .amount(100)
+                        .rsEventDto(RsEventDto.builder()
+                                .id(1)
+                                .build())
+                        .build()
+        ));
+
+        when(rsEventRepository.findAll()).thenReturn(Arrays.asList(
+                RsEventDto.builder()
+                        .id(1)
+                        .voteNum(1)
+                        .build(),
+
+                RsEventDto.builder()
+                        .id(2)
+                        .voteNum(2)
+                        .build(),
+
+                RsEventDto.builder()
+                        .id(3)
+                        .voteNum(3)
+                        .build()
+        ));
+
+        List<RsEvent> rsEvents = rsService.getRsEventsBetween(1, 2, RankingOrder.VOTES);
+
+        assertIterableEquals(
+                rsEvents.stream().map(RsEvent::getId).collect(Collectors.toList()),
+                Arrays.asList(3, 1)
+        );
+    }
 }
@@ -0,0 +1,65 @@
+package com.thoughtworks.rslist.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TimerWheelTest {
+
+    @Test
+    void shouldExpireOnlyWhenDeadlineTickIsReached() {
+        TimerWheel<Integer> timerWheel = new TimerWheel<>(10, 8, 0);
+        List<Integer> expired = new ArrayList<>();
+
+        timerWheel.schedule(1, 25);
+        timerWheel.schedule(2, 40);
+
+        timerWheel.advance(29, expired::add);
+        assertEquals(Collections.emptyList(), expired);
+
+        timerWheel.advance(30, expired::add);
+        assertEquals(Collections.singletonList(1), expired);
+
+        timerWheel.advance(40, expired::add);
+        assertEquals(Arrays.asList(1, 2), expired);
+        assertEquals(0, timerWheel.size());
+    }
+
+    @Test
+    void shouldKeepTimeoutsBeyondOneRevolution() {
+        TimerWheel<Integer> timerWheel = new TimerWheel<>(10, 4, 0);
+        List<Integer> expired = new ArrayList<>();
+
+        timerWheel.schedule(1, 100);
+
+        timerWheel.advance(90, expired::add);
+        assertEquals(Collections.emptyList(), expired);
+        assertEquals(1, timerWheel.size());
+
+        timerWheel.advance(100, expired::add);
+        assertEquals(Collections.singletonList(1), expired);
+    }
+
+    @Test
+    void shouldExpirePastDeadlinesOnNextAdvance() {
+        TimerWheel<Integer> timerWheel = new TimerWheel<>(10, 4, 0);
+        List<Integer> expired = new ArrayList<>();
+        timerWheel.advance(50, expired::add);
+
+        timerWheel.schedule(1, 10);
+        timerWheel.advance(60, expired::add);
+
+        assertEquals(Collections.singletonList(1), expired);
+    }
+
+    @Test
+    void shouldRejectWheelSizeThatIsNotPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new TimerWheel<Integer>(10, 6, 0));
+    }
+}
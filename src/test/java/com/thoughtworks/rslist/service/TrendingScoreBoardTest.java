@@ -0,0 +1,128 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.ChangeType;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.event.RsEventChangedEvent;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TrendingScoreBoardTest {
+
+    TrendingScoreBoard trendingScoreBoard;
+
+    LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        trendingScoreBoard = new TrendingScoreBoard(Duration.ofHours(1));
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    void shouldHalveWeightOfVotesEveryHalfLife() {
+        trendingScoreBoard.add(1, 4, now.minusHours(2));
+        trendingScoreBoard.add(2, 1, now);
+
+        Map<Integer, Double> scores = trendingScoreBoard.getScores(Arrays.asList(1, 2));
+
+        assertEquals(scores.get(1), scores.get(2), scores.get(2) * 1e-3);
+    }
+
+    @Test
+    void shouldRankRecentVotesHigher() {
+        trendingScoreBoard.add(1, 10, now.minusDays(1));
+        trendingScoreBoard.add(2, 2, now.minusMinutes(5));
+
+        Map<Integer, Double> scores = trendingScoreBoard.getScores(Arrays.asList(1, 2, 3));
+
+        assertTrue(scores.get(2) > scores.get(1));
+        assertEquals(scores.get(3), 0.0);
+    }
+
+    @Test
+    void shouldLeaveVotesBeforeTheCutoffToTheRebuild() {
+        trendingScoreBoard.voteRepository = mock(VoteRepository.class);
+        trendingScoreBoard.transactionManager = mock(PlatformTransactionManager.class);
+        when(trendingScoreBoard.voteRepository.streamVotes(any(), any())).thenReturn(Stream.of(
+                Vote.builder().rsEventId(1).voteNum(2).time(now.minusMinutes(1)).build()));
+
+        trendingScoreBoard.rebuild();
+        trendingScoreBoard.onRsEventChanged(vote(1, now.minusMinutes(1)));
+        trendingScoreBoard.onRsEventChanged(vote(2, LocalDateTime.now()));
+
+        Map<Integer, Double> scores = trendingScoreBoard.getScores(Arrays.asList(1, 2));
+        assertEquals(scores.get(2), scores.get(1), scores.get(2) * 0.05);
+    }
+
+    @Test
+    void shouldKeepOrderAfterRenormalize() {
+        trendingScoreBoard.add(1, 3, now.minusMinutes(30));
+        trendingScoreBoard.add(2, 2, now.minusMinutes(10));
+        Map<Integer, Double> before = trendingScoreBoard.getScores(Arrays.asList(1, 2));
+
+        trendingScoreBoard.renormalize(System.currentTimeMillis() / 1000 + 7200);
+        Map<Integer, Double> after = trendingScoreBoard.getScores(Arrays.asList(1, 2));
+
+        assertEquals(before.get(1) / before.get(2), after.get(1) / after.get(2), 1e-9);
+        assertTrue(after.get(1) < before.get(1));
+    }
+
+    private RsEventChangedEvent vote(int rsEventId, LocalDateTime time) {
+        return RsEventChangedEvent.builder().type(ChangeType.VOTE).rsEventId(rsEventId).amount(2).time(time).build();
+    }
+
+    // a node writes at most a few thousand votes a second through its connection pool,
+    // so scoring has to keep up with well over that from all write threads at once
+    @Test
+    void shouldScoreFarMoreVotesPerSecondThanANodeCanWrite() throws Exception {
+        int threads = 4;
+        int votesPerThread = 250000;
+        for (int i = 0; i < 100000; i++) {
+            trendingScoreBoard.add(i % 10000, 1, null);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            int offset = thread;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < votesPerThread; i++) {
+                    trendingScoreBoard.add((i * 31 + offset) % 10000, 1, null);
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double votesPerSecond = threads * (double) votesPerThread / (System.nanoTime() - startedAt) * 1e9;
+        executor.shutdown();
+
+        assertTrue(votesPerSecond > 100000, "scored " + (long) votesPerSecond + " votes per second");
+    }
+}
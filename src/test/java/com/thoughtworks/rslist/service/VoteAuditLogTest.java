@@ -0,0 +1,56 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.AuditAction;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class VoteAuditLogTest {
+
+    @Autowired
+    VoteAuditLog voteAuditLog;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldWritePublishedRecordsToAuditLog() throws InterruptedException {
+        voteAuditLog.publish(AuditAction.VOTE, 7, 4242, 3, true, null, TimeUnit.MICROSECONDS.toNanos(150));
+        voteAuditLog.publish(AuditAction.BUY, null, 4242, 100, false, "amount not enough", 0);
+
+        List<Map<String, Object>> rows = awaitRows(4242, 2);
+
+        assertEquals(2, rows.size());
+        assertEquals("VOTE", rows.get(0).get("action"));
+        assertEquals(7, rows.get(0).get("user_id"));
+        assertEquals(3, rows.get(0).get("amount"));
+        assertEquals(true, rows.get(0).get("accepted"));
+        assertEquals(150L, rows.get(0).get("latency_micros"));
+        assertEquals("BUY", rows.get(1).get("action"));
+        assertEquals(null, rows.get(1).get("user_id"));
+        assertEquals(false, rows.get(1).get("accepted"));
+        assertEquals("amount not enough", rows.get(1).get("reason"));
+    }
+
+    private List<Map<String, Object>> awaitRows(int rsEventId, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        List<Map<String, Object>> rows;
+        do {
+            rows = jdbcTemplate.queryForList(
+                    "SELECT * FROM audit_log WHERE rs_event_id = ? ORDER BY id", rsEventId);
+            if (rows.size() >= expected) {
+                break;
+            }
+            Thread.sleep(20);
+        } while (System.currentTimeMillis() < deadline);
+        return rows;
+    }
+}
@@ -0,0 +1,117 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.dto.VoteRefillDto;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRefillRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class VoteRefillServiceTest {
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    VoteRefillRepository voteRefillRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    VoteRefillService voteRefillService;
+
+    LocalDateTime now = LocalDateTime.of(2020, 5, 20, 13, 30);
+
+    @BeforeEach
+    void setUp() {
+        voteRefillService = new VoteRefillService(userRepository, voteRefillRepository, transactionManager,
+                true, Duration.ofDays(1), 10, 2, 0, 60000);
+    }
+
+    @Test
+    void shouldTopUpEveryUserBelowBudgetInChunks() {
+        List<UserDto> users = saveUsers(3, 0, 12, 10, 7);
+
+        voteRefillService.refill(now);
+
+        assertEquals(10, voteNumOf(users.get(0)));
+        assertEquals(10, voteNumOf(users.get(1)));
+        assertEquals(12, voteNumOf(users.get(2)));
+        assertEquals(10, voteNumOf(users.get(3)));
+        assertEquals(10, voteNumOf(users.get(4)));
+
+        VoteRefillDto state = voteRefillRepository.findById(LocalDateTime.of(2020, 5, 20, 0, 0)).get();
+        assertEquals(users.get(4).getId(), state.getLastUserId());
+        assertNotNull(state.getCompletedAt());
+    }
+
+    @Test
+    void shouldRefillOnlyOncePerPeriod() {
+        List<UserDto> users = saveUsers(3);
+
+        voteRefillService.refill(now);
+        spend(users.get(0), 3);
+        voteRefillService.refill(now.plusHours(5));
+
+        assertEquals(7, voteNumOf(users.get(0)));
+
+        voteRefillService.refill(now.plusDays(1));
+
+        assertEquals(10, voteNumOf(users.get(0)));
+    }
+
+    @Test
+    void shouldResumeAfterTheLastCommittedChunk() {
+        List<UserDto> users = saveUsers(1, 2, 3, 4);
+        voteRefillRepository.save(VoteRefillDto.builder()
+                .periodStart(LocalDateTime.of(2020, 5, 20, 0, 0))
+                .lastUserId(users.get(1).getId())
+                .build());
+
+        voteRefillService.refill(now);
+
+        assertEquals(1, voteNumOf(users.get(0)));
+        assertEquals(2, voteNumOf(users.get(1)));
+        assertEquals(10, voteNumOf(users.get(2)));
+        assertEquals(10, voteNumOf(users.get(3)));
+    }
+
+    private List<UserDto> saveUsers(int... voteNums) {
+        List<UserDto> users = new ArrayList<>();
+        for (int voteNum : voteNums) {
+            users.add(userRepository.save(UserDto.builder()
+                    .userName("user")
+                    .gender("female")
+                    .age(19)
+                    .email("a@b.com")
+                    .phone("18888888888")
+                    .voteNum(voteNum)
+                    .build()));
+        }
+        return users;
+    }
+
+    private void spend(UserDto userDto, int voteNum) {
+        UserDto user = userRepository.findById(userDto.getId()).get();
+        user.setVoteNum(user.getVoteNum() - voteNum);
+        userRepository.save(user);
+    }
+
+    private int voteNumOf(UserDto userDto) {
+        return userRepository.findById(userDto.getId()).get().getVoteNum();
+    }
+}
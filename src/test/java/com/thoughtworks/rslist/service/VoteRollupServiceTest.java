@@ -0,0 +1,146 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.ChangeType;
+import com.thoughtworks.rslist.domain.RollupGranularity;
+import com.thoughtworks.rslist.domain.VoteRollup;
+import com.thoughtworks.rslist.event.RsEventChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class VoteRollupServiceTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    VoteRollupService voteRollupService;
+
+    LocalDateTime time = LocalDateTime.of(2020, 5, 20, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        voteRollupService = new VoteRollupService(jdbcTemplate, transactionManager, Duration.ofDays(7));
+    }
+
+    @Test
+    void shouldSumVotesPerMinuteAcrossFlushes() {
+        voteRollupService.add(1, 2, time.plusSeconds(5));
+        voteRollupService.add(1, 3, time.plusSeconds(50));
+        voteRollupService.add(2, 4, time.plusSeconds(10));
+        voteRollupService.flush();
+        voteRollupService.add(1, 1, time.plusSeconds(59));
+        voteRollupService.add(1, 5, time.plusMinutes(1));
+        voteRollupService.flush();
+
+        List<VoteRollup> rollups = voteRollupService.getVoteRollups(1, time, time.plusHours(1),
+                RollupGranularity.MINUTE);
+
+        assertIterableEquals(Arrays.asList(
+                new VoteRollup(time, 6, 3),
+                new VoteRollup(time.plusMinutes(1), 5, 1)), rollups);
+    }
+
+    @Test
+    void shouldKeepTotalsWhenTheFlushTransactionCannotStart() {
+        AtomicBoolean down = new AtomicBoolean(true);
+        PlatformTransactionManager flakyTransactionManager = new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                if (down.getAndSet(false)) {
+                    throw new CannotCreateTransactionException("database down");
+                }
+                return transactionManager.getTransaction(definition);
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+                transactionManager.commit(status);
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+                transactionManager.rollback(status);
+            }
+        };
+        voteRollupService = new VoteRollupService(jdbcTemplate, flakyTransactionManager, Duration.ofDays(7));
+
+        voteRollupService.add(1, 2, time);
+        voteRollupService.flush();
+        voteRollupService.flush();
+
+        assertIterableEquals(Collections.singletonList(new VoteRollup(time, 2, 1)),
+                voteRollupService.getVoteRollups(1, time, time.plusMinutes(1), RollupGranularity.MINUTE));
+    }
+
+    @Test
+    void shouldMergeHourRowsWithMinuteRowsAtTheEdges() {
+        voteRollupService.add(1, 1, time.minusMinutes(20));
+        voteRollupService.add(1, 2, time.minusMinutes(40));
+        voteRollupService.add(1, 3, time.plusMinutes(30));
+        voteRollupService.add(1, 4, time.plusHours(1).plusMinutes(10));
+        voteRollupService.add(1, 5, time.plusHours(1).plusMinutes(50));
+        voteRollupService.flush();
+
+        List<VoteRollup> rollups = voteRollupService.getVoteRollups(1, time.minusMinutes(30),
+                time.plusHours(1).plusMinutes(30), RollupGranularity.HOUR);
+
+        assertIterableEquals(Arrays.asList(
+                new VoteRollup(time.minusHours(1), 1, 1),
+                new VoteRollup(time, 3, 1),
+                new VoteRollup(time.plusHours(1), 4, 1)), rollups);
+
+        assertEquals(Arrays.asList(new VoteRollup(time.toLocalDate().atStartOfDay(), 15, 5)),
+                voteRollupService.getVoteRollups(1, time.minusDays(1), time.plusDays(1), RollupGranularity.DAY));
+    }
+
+    @Test
+    void shouldOnlyRollUpLocalVotes() {
+        voteRollupService.onRsEventChanged(RsEventChangedEvent.builder()
+                .type(ChangeType.VOTE).rsEventId(1).amount(2).time(time).build());
+        voteRollupService.onRsEventChanged(RsEventChangedEvent.builder()
+                .type(ChangeType.VOTE).rsEventId(1).amount(3).time(time).remote(true).build());
+        voteRollupService.onRsEventChanged(RsEventChangedEvent.builder()
+                .type(ChangeType.BUY).rsEventId(1).amount(100).time(time).build());
+        voteRollupService.flush();
+
+        assertIterableEquals(Arrays.asList(new VoteRollup(time, 2, 1)),
+                voteRollupService.getVoteRollups(1, time, time.plusMinutes(1), RollupGranularity.MINUTE));
+    }
+
+    @Test
+    void shouldExpireMinuteRowsButKeepHourRows() {
+        LocalDateTime old = LocalDateTime.now().minusDays(8).withSecond(0).withNano(0);
+        voteRollupService.add(1, 2, old);
+        voteRollupService.flush();
+
+        voteRollupService.expire();
+
+        assertTrue(voteRollupService.getVoteRollups(1, old, old.plusMinutes(1), RollupGranularity.MINUTE)
+                .isEmpty());
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT vote_num FROM vote_rollup WHERE granularity = 'HOUR'", Long.class));
+    }
+}
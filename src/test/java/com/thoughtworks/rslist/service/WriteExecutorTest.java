@@ -0,0 +1,142 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.AuditAction;
+import com.thoughtworks.rslist.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteExecutorTest {
+
+    WriteExecutor writeExecutor;
+
+    @AfterEach
+    void tearDown() {
+        writeExecutor.stop();
+    }
+
+    @Test
+    void shouldRunTaskAndPassOnItsFailure() throws Exception {
+        writeExecutor = new WriteExecutor(2, 10, 5000, 10, 5000);
+
+        writeExecutor.submit(AuditAction.VOTE, () -> { }).get(5, TimeUnit.SECONDS);
+        CompletableFuture<Void> failed = writeExecutor.submit(AuditAction.VOTE, () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertEquals(2, writeExecutor.getSubmitted(AuditAction.VOTE));
+        assertEquals(1, writeExecutor.getFailed(AuditAction.VOTE));
+    }
+
+    @Test
+    void shouldRejectBeyondTheEndpointQueueLimitWithoutAffectingOtherEndpoints() throws Exception {
+        writeExecutor = new WriteExecutor(1, 2, 5000, 1, 5000);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> first = writeExecutor.submit(AuditAction.VOTE, () -> await(release));
+        CompletableFuture<Void> second = writeExecutor.submit(AuditAction.VOTE, () -> { });
+        CompletableFuture<Void> rejected = writeExecutor.submit(AuditAction.VOTE, () -> { });
+        CompletableFuture<Void> buy = writeExecutor.submit(AuditAction.BUY, () -> { });
+
+        assertServiceUnavailable(rejected);
+        assertEquals(1, writeExecutor.getRejected(AuditAction.VOTE));
+        assertEquals(0, writeExecutor.getRejected(AuditAction.BUY));
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        buy.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shouldTimeOutAndSkipATaskThatHasNotStarted() throws Exception {
+        writeExecutor = new WriteExecutor(1, 10, 100, 10, 5000);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        CompletableFuture<Void> blocking = writeExecutor.submit(AuditAction.BUY, () -> await(release));
+        CompletableFuture<Void> queued = writeExecutor.submit(AuditAction.VOTE, () -> ran.set(true));
+
+        assertServiceUnavailable(queued);
+        assertEquals(1, writeExecutor.getTimedOut(AuditAction.VOTE));
+        assertEquals(0, writeExecutor.getInFlight(AuditAction.VOTE));
+
+        release.countDown();
+        blocking.get(5, TimeUnit.SECONDS);
+        writeExecutor.submit(AuditAction.VOTE, () -> { }).get(5, TimeUnit.SECONDS);
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void shouldLetAStartedTaskFinishPastItsTimeout() throws Exception {
+        writeExecutor = new WriteExecutor(1, 10, 100, 10, 5000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> running = writeExecutor.submit(AuditAction.VOTE, () -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Thread.sleep(300);
+
+        assertFalse(running.isDone());
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        assertEquals(0, writeExecutor.getTimedOut(AuditAction.VOTE));
+    }
+
+    @Test
+    void shouldPublishEndpointMeters() throws Exception {
+        writeExecutor = new WriteExecutor(1, 10, 5000, 10, 5000);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        writeExecutor.bindTo(registry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> running = writeExecutor.submit(AuditAction.VOTE, () -> {
+            started.countDown();
+            await(release);
+        });
+        CompletableFuture<Void> queued = writeExecutor.submit(AuditAction.VOTE, () -> { });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertEquals(2, registry.get("rs.write-executor.submitted").tag("endpoint", "vote").functionCounter().count());
+        assertEquals(1, registry.get("rs.write-executor.active").tag("endpoint", "vote").gauge().value());
+        assertEquals(1, registry.get("rs.write-executor.queued").tag("endpoint", "vote").gauge().value());
+        assertEquals(2, registry.get("rs.write-executor.in-flight").tag("endpoint", "vote").gauge().value());
+        assertEquals(0, registry.get("rs.write-executor.in-flight").tag("endpoint", "buy").gauge().value());
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+        assertEquals(0, registry.get("rs.write-executor.in-flight").tag("endpoint", "vote").gauge().value());
+    }
+
+    private void assertServiceUnavailable(CompletableFuture<Void> future) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof ServiceUnavailableException);
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
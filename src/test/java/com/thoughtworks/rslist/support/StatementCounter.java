@@ -0,0 +1,59 @@
+package com.thoughtworks.rslist.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Captures the SQL statements the calling thread sends through the test data source.
+// Statements of scheduled jobs running at the same time stay out of the count; MockMvc
+// requests and service calls run on the calling thread and are counted. Every execution
+// counts once, a JDBC batch once per executeBatch. Statements from any thread that take
+// longer than rs.statement-log.slow-threshold are logged.
+public final class StatementCounter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatementCounter.class);
+
+    static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    static volatile long slowThresholdNanos = Long.MAX_VALUE;
+
+    private StatementCounter() {
+    }
+
+    public interface Work {
+        void run() throws Exception;
+    }
+
+    public static List<String> capture(Work work) throws Exception {
+        List<String> statements = new ArrayList<>();
+        CAPTURED.set(statements);
+        try {
+            work.run();
+        } finally {
+            CAPTURED.remove();
+        }
+        return statements;
+    }
+
+    public static void assertAtMost(int maxStatements, Work work) throws Exception {
+        List<String> statements = capture(work);
+        if (statements.size() > maxStatements) {
+            throw new AssertionError(String.format("expected at most %d statements but %d were issued:%n%s",
+                    maxStatements, statements.size(), String.join(System.lineSeparator(), statements)));
+        }
+    }
+
+    static void executed(String sql, long elapsedNanos) {
+        List<String> statements = CAPTURED.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        if (elapsedNanos >= slowThresholdNanos) {
+            LOGGER.warn("slow statement on {} ({} ms): {}", Thread.currentThread().getName(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), sql);
+        }
+    }
+}
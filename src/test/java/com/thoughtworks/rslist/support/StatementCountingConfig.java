@@ -0,0 +1,36 @@
+package com.thoughtworks.rslist.support;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.concurrent.TimeUnit;
+
+// Picked up by component scanning in every test context. Hikari keeps pooling as usual
+// but opens its connections through StatementCountingDataSource instead of the driver.
+@Configuration
+public class StatementCountingConfig {
+
+    @Bean
+    public static BeanPostProcessor statementCountingPostProcessor(Environment environment) {
+        StatementCounter.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(
+                environment.getProperty("rs.statement-log.slow-threshold", Long.class, Long.MAX_VALUE));
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource) {
+                    HikariDataSource hikariDataSource = (HikariDataSource) bean;
+                    hikariDataSource.setDataSource(new StatementCountingDataSource(new DriverManagerDataSource(
+                            hikariDataSource.getJdbcUrl(),
+                            hikariDataSource.getUsername(),
+                            hikariDataSource.getPassword())));
+                }
+                return bean;
+            }
+        };
+    }
+}